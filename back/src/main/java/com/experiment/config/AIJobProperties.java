@@ -0,0 +1,59 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI后台任务配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.job")
+public class AIJobProperties {
+
+    /**
+     * 同时执行的任务数
+     */
+    private int concurrency = 8;
+
+    /**
+     * 等待队列容量，队列满时新任务被拒绝
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 单个任务内同时处理的项数（如一次练习的多道题并行分析）
+     */
+    private int itemParallelism = 4;
+
+    /**
+     * 全局同时处理的任务项上限
+     */
+    private int maxInFlightItems = 32;
+
+    /**
+     * 练习AI分析每次大模型调用打包的题目数，1表示逐题调用
+     */
+    private int analysisBatchSize = 1;
+
+    /**
+     * 练习AI分析每批题目数的上限，请求中指定的批大小会被限制在1到该值之间
+     */
+    private int maxAnalysisBatchSize = 10;
+
+    /**
+     * 是否使用虚拟线程执行任务
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 全局大模型调用速率（次/秒）
+     */
+    private double rateLimitPerSecond = 5.0;
+
+    /**
+     * 已结束任务的保留时间（分钟），过期后无法再查询状态
+     */
+    private long retentionMinutes = 60;
+}
@@ -0,0 +1,40 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 知识库检索配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kb.retrieval")
+public class KnowledgeRetrievalProperties {
+
+    /**
+     * 检索模式：bm25（关键词，默认）或 vector（向量）。
+     * 内置的HashingEmbeddingProvider只是无IDF的特征哈希，相关度不如BM25，接入真正的向量模型后再切换为vector
+     */
+    private String mode = "bm25";
+
+    /**
+     * 向量维度
+     */
+    private int embeddingDimension = 512;
+
+    /**
+     * 注入提示词的最多段落数
+     */
+    private int contextTopK = 5;
+
+    /**
+     * 向量检索的最低相似度
+     */
+    private double minScore = 0.1;
+
+    /**
+     * 注入提示词的知识库上下文token预算
+     */
+    private int contextTokenBudget = 1500;
+}
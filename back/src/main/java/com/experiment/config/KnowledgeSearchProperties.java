@@ -0,0 +1,49 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 统一检索配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kb.search")
+public class KnowledgeSearchProperties {
+
+    /**
+     * 检查索引是否需要重建的间隔（秒）
+     */
+    private long refreshCheckSeconds = 30;
+
+    /**
+     * 默认每页条数
+     */
+    private int defaultPageSize = 10;
+
+    /**
+     * 每页条数上限
+     */
+    private int maxPageSize = 50;
+
+    /**
+     * 可翻页的结果总数上限
+     */
+    private int maxResults = 500;
+
+    /**
+     * 查询词项数上限，超出部分忽略，避免超长查询拖慢检索
+     */
+    private int maxQueryTokens = 32;
+
+    /**
+     * 检索耗时预算（毫秒），超出时记录告警
+     */
+    private long latencyBudgetMs = 20;
+
+    /**
+     * 摘要长度（字符）
+     */
+    private int snippetLength = 120;
+}
@@ -0,0 +1,24 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 学习统计配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics")
+public class LearningAnalyticsProperties {
+
+    /**
+     * 内存计数器写入数据库检查点的间隔（秒）
+     */
+    private long checkpointSeconds = 60;
+
+    /**
+     * 没有检查点时，从历史数据回溯多少天来恢复活跃用户和连续学习天数
+     */
+    private int seedDays = 60;
+}
@@ -0,0 +1,49 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 大模型响应缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "llm.cache")
+public class LlmCacheProperties {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 内存缓存最大条目数（超出按LRU淘汰）
+     */
+    private int maxEntries = 2000;
+
+    /**
+     * 缓存有效期（分钟）
+     */
+    private long ttlMinutes = 24 * 60;
+
+    /**
+     * 是否启用磁盘缓存（重启后仍可命中）
+     */
+    private boolean diskEnabled = false;
+
+    /**
+     * 磁盘缓存目录
+     */
+    private String diskPath = "cache/llm";
+
+    /**
+     * 磁盘缓存最大文件数（超出时按修改时间删除最旧的文件）
+     */
+    private int maxDiskEntries = 20000;
+
+    /**
+     * 磁盘缓存清理间隔（分钟），清理过期文件并把文件数控制在上限内
+     */
+    private long diskSweepMinutes = 30;
+}
@@ -0,0 +1,43 @@
+package com.experiment.config;
+
+import com.experiment.utils.LlmHttpPoolMonitor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型HTTP客户端配置
+ * 所有大模型调用共用一个带连接池的OkHttpClient，复用keep-alive连接，避免每次调用重新建立TCP+TLS连接
+ */
+@Slf4j
+@Configuration
+public class LlmHttpConfig {
+
+    @Bean
+    public OkHttpClient llmHttpClient(LlmHttpProperties properties, LlmHttpPoolMonitor monitor) {
+        ConnectionPool connectionPool = new ConnectionPool(
+                properties.getMaxIdleConnections(), properties.getKeepAliveSeconds(), TimeUnit.SECONDS);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(properties.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(properties.getMaxRequestsPerHost());
+
+        monitor.register(connectionPool, dispatcher);
+        log.info("创建大模型HTTP客户端: {}", properties);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .addInterceptor(monitor)
+                .connectTimeout(properties.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(properties.getReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .writeTimeout(properties.getWriteTimeoutMs(), TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+}
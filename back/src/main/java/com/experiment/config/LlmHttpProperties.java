@@ -0,0 +1,54 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 大模型HTTP连接池配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "llm.http")
+public class LlmHttpProperties {
+
+    /**
+     * 连接池最大空闲连接数
+     */
+    private int maxIdleConnections = 32;
+
+    /**
+     * 空闲连接保活时间（秒）
+     */
+    private long keepAliveSeconds = 300;
+
+    /**
+     * 全局最大并发请求数
+     */
+    private int maxRequests = 64;
+
+    /**
+     * 单个主机最大并发请求数（许可持有到响应体关闭，流式响应在读取期间一直占用）
+     */
+    private int maxRequestsPerHost = 16;
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private long connectTimeoutMs = 15000;
+
+    /**
+     * 读取超时（毫秒）
+     */
+    private long readTimeoutMs = 120000;
+
+    /**
+     * 写入超时（毫秒）
+     */
+    private long writeTimeoutMs = 30000;
+
+    /**
+     * 等待主机并发许可的最长时间（毫秒），超时则拒绝请求
+     */
+    private long acquireTimeoutMs = 30000;
+}
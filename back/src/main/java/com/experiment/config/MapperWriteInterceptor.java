@@ -0,0 +1,82 @@
+package com.experiment.config;
+
+import com.experiment.utils.MapperWriteListener;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * MyBatis写操作拦截器
+ * 所有insert/update/delete执行成功后通知关注该Mapper的{@link MapperWriteListener}，
+ * 使缓存失效不依赖于每个调用方记得手动清理
+ */
+@Slf4j
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class MapperWriteInterceptor implements Interceptor {
+
+    /**
+     * 延迟获取监听器，避免SqlSessionFactory与依赖Mapper的缓存组件之间循环依赖
+     */
+    private final ObjectProvider<MapperWriteListener> listeners;
+
+    public MapperWriteInterceptor(ObjectProvider<MapperWriteListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        String statementId = statement.getId();
+        String mapperName = statementId.substring(0, statementId.lastIndexOf('.'));
+
+        listeners.orderedStream()
+                .filter(listener -> listener.watchedMappers().stream().anyMatch(m -> m.getName().equals(mapperName)))
+                .forEach(listener -> notify(listener, statementId, parameter));
+        return result;
+    }
+
+    private void notify(MapperWriteListener listener, String statementId, Object parameter) {
+        try {
+            listener.onWrite(statementId, parameter);
+        } catch (Exception e) {
+            log.warn("缓存失效回调失败: {}", statementId, e);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // 回调异常会中断同一事务后续的同步回调，必须在这里吞掉
+                    try {
+                        listener.onWrite(statementId, parameter);
+                    } catch (Exception e) {
+                        log.warn("缓存失效回调失败: {}", statementId, e);
+                    }
+                    try {
+                        listener.onCommitted(statementId, parameter);
+                    } catch (Exception e) {
+                        log.warn("写入提交回调失败: {}", statementId, e);
+                    }
+                }
+            });
+        } else {
+            try {
+                listener.onCommitted(statementId, parameter);
+            } catch (Exception e) {
+                log.warn("写入提交回调失败: {}", statementId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 提示词token预算配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "llm.prompt")
+public class PromptBudgetProperties {
+
+    /**
+     * 未单独配置的接口使用的默认预算（token）
+     */
+    private int defaultBudget = 4000;
+
+    /**
+     * 长文档切块的目标大小（token）
+     */
+    private int chunkTokens = 400;
+
+    /**
+     * 各接口的提示词预算（token），键为接口标识
+     */
+    private Map<String, Integer> budgets = new HashMap<>(Map.of(
+            "chat-with-document", 6000,
+            "generate-mindmap", 8000,
+            "question-generation", 3000));
+}
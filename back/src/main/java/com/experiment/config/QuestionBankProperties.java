@@ -0,0 +1,69 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 题库优先出题与后台补题配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "question-bank")
+public class QuestionBankProperties {
+
+    /**
+     * 题库题目足够时直接从题库出题，不再等待大模型
+     */
+    private boolean bankFirst = true;
+
+    /**
+     * 是否启用后台补题
+     */
+    private boolean replenishEnabled = true;
+
+    /**
+     * 每个题目池（学科、知识点、题型、难度）保持的未充分使用题目数
+     */
+    private int targetDepth = 20;
+
+    /**
+     * 使用次数低于该值的题目计入池深度
+     */
+    private int freshUseCount = 3;
+
+    /**
+     * 每次大模型调用补充的题目数
+     */
+    private int replenishBatchSize = 5;
+
+    /**
+     * 低峰时段开始（小时，含）
+     */
+    private int offPeakStartHour = 1;
+
+    /**
+     * 低峰时段结束（小时，不含），小于开始时间表示跨零点
+     */
+    private int offPeakEndHour = 6;
+
+    /**
+     * 后台补题每天可消耗的token数（提示词+回复估算）
+     */
+    private long dailyTokenBudget = 200_000;
+
+    /**
+     * 检查是否需要补题的间隔（分钟）
+     */
+    private long checkIntervalMinutes = 10;
+
+    /**
+     * 题目使用次数写回数据库的间隔（秒）
+     */
+    private long useCountFlushSeconds = 5;
+
+    /**
+     * 题干+选项的MinHash相似度不低于该值时视为近似重复：入库时跳过，单次出题结果中也会剔除
+     */
+    private double duplicateThreshold = 0.75;
+}
@@ -0,0 +1,39 @@
+package com.experiment.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AI出题线程池配置
+ * 各题型、各批次的出题调用在此线程池中并发执行，请求线程只负责等待和合并结果；
+ * 队列有界，模型响应变慢时新批次被拒绝并降级，而不是排在已超时的调用后面
+ */
+@Slf4j
+@Configuration
+public class QuestionGenerationConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService questionGenerationExecutor(QuestionGenerationProperties properties) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getConcurrency(), properties.getConcurrency(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "question-gen-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        log.info("创建AI出题线程池: {}", properties);
+        return executor;
+    }
+}
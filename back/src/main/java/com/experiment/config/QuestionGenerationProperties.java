@@ -0,0 +1,39 @@
+package com.experiment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI出题配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.question-generation")
+public class QuestionGenerationProperties {
+
+    /**
+     * 每次大模型调用生成的题目数
+     */
+    private int batchSize = 5;
+
+    /**
+     * 同时进行的出题调用数
+     */
+    private int concurrency = 6;
+
+    /**
+     * 出题线程池的等待队列容量，队列满时新批次直接按失败处理（由补题轮次或模拟题、题库补齐）
+     */
+    private int queueCapacity = 24;
+
+    /**
+     * 单轮出题的最长等待时间（秒），超时的批次按失败处理；智能组卷时各题型共用此截止时间
+     */
+    private long timeoutSeconds = 90;
+
+    /**
+     * 去重或解析失败导致数量不足时的最多补题轮数（含首轮）
+     */
+    private int maxRounds = 2;
+}
@@ -0,0 +1,25 @@
+package com.experiment.constant;
+
+/**
+ * 数据导出相关常量
+ */
+public class ExportConstants {
+    
+    // 导出数据集
+    public static final String DATASET_EXAM_RESULTS = "exam-results";
+    public static final String DATASET_ANSWERS = "answers";
+    public static final String DATASET_PRACTICE_RESULTS = "practice-results";
+    
+    // 导出格式
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_XLSX = "xlsx";
+    
+    // 响应类型
+    public static final String CONTENT_TYPE_CSV = "text/csv;charset=UTF-8";
+    public static final String CONTENT_TYPE_XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    
+    // 错误信息
+    public static final String ERROR_UNKNOWN_DATASET = "不支持的导出数据: ";
+    public static final String ERROR_UNKNOWN_FORMAT = "不支持的导出格式: ";
+    public static final String ERROR_UNSUPPORTED_FILTER = "该数据不支持按此条件导出: ";
+}
@@ -29,6 +29,8 @@ public class PracticeConstants {
     public static final int DEFAULT_TOTAL_SCORE = 100;
     public static final int DEFAULT_DURATION = 30;
     public static final int DEFAULT_QUESTION_COUNT = 10;
+    public static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
     
     // 错误消息
     public static final String ERROR_PRACTICE_NOT_FOUND = "练习不存在";
@@ -36,4 +38,5 @@ public class PracticeConstants {
     public static final String ERROR_PRACTICE_ALREADY_COMPLETED = "练习已完成";
     public static final String ERROR_PRACTICE_RECORD_NOT_FOUND = "练习记录不存在";
     public static final String ERROR_INVALID_ANSWER = "答案格式无效";
+    public static final String ERROR_INVALID_CURSOR = "分页游标无效";
 } 
\ No newline at end of file
@@ -3,11 +3,19 @@ package com.experiment.controller;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.io.IOException;
@@ -22,22 +30,39 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.http.MediaType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 
+import com.experiment.config.AIJobProperties;
+import com.experiment.config.QuestionBankProperties;
 import com.experiment.config.DashScopeConfig;
+import com.experiment.config.QuestionGenerationProperties;
 import com.experiment.pojo.ChatRequest;
 import com.experiment.pojo.ChatResponse;
 import com.experiment.result.Result;
+import com.experiment.service.AIJobService;
 import com.experiment.service.AIService;
+import com.experiment.service.KnowledgeSearchService;
 import com.experiment.utils.AliOssUtil;
 import com.experiment.utils.AliOssProperties;
 import com.alibaba.fastjson.JSONObject;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.experiment.utils.ApiClient;
 import com.experiment.utils.ApiAuthAlgorithm;
 import com.experiment.utils.CreateResponse;
+import com.experiment.utils.LlmHttpPoolMonitor;
+import com.experiment.utils.LlmResponseCache;
+import com.experiment.utils.MinHash;
+import com.experiment.utils.MinHashIndex;
+import com.experiment.utils.PromptBudgeter;
+import com.experiment.utils.TokenEstimator;
 
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
 
 /**
  * AI控制器
@@ -48,14 +73,79 @@ import lombok.extern.slf4j.Slf4j;
 @CrossOrigin
 public class AIController {
     
+    /**
+     * 流式对话超时时间，略大于大模型读取超时
+     */
+    private static final long STREAM_TIMEOUT_MS = 180_000L;
+    
+    /**
+     * 提示词预算的接口标识
+     */
+    private static final String PROMPT_CHAT_WITH_DOCUMENT = "chat-with-document";
+    private static final String PROMPT_GENERATE_MINDMAP = "generate-mindmap";
+    
+    /**
+     * 批量出题时各题依次侧重的角度，不同批次错开起点
+     */
+    private static final String[] QUESTION_ANGLES = {
+        "基础概念理解", "实际应用场景", "技术实现细节", "性能优化考虑",
+        "最佳实践应用", "常见问题解决", "架构设计思路", "工具使用技巧"
+    };
+    
+    /**
+     * 提示模型避开的已有题目数及每个标题保留的长度
+     */
+    private static final int MAX_AVOID_TITLES = 20;
+    private static final int MAX_AVOID_TITLE_LENGTH = 60;
+    
+    /**
+     * 模拟题与已有题目重复时的最多重新生成次数
+     */
+    private static final int MOCK_DEDUP_ATTEMPTS = 10;
+    
+    private static final String DOCUMENT_CHAT_PROMPT = "你是一个专业的文档分析助手。用户会提供一个文档内容，然后询问关于该文档的问题。请基于文档内容准确、详细地回答用户的问题。如果问题超出文档范围，请明确说明。\n\n文档内容：\n";
+    
     @Autowired
     private AIService aiService;
     
+    @Autowired
+    private AIJobService aiJobService;
+    
+    @Autowired
+    private AIJobProperties aiJobProperties;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @Autowired
     private DashScopeConfig dashScopeConfig;
     
     @Autowired
     private AliOssProperties aliOssProperties;
+    
+    @Autowired
+    private OkHttpClient llmHttpClient;
+    
+    @Autowired
+    private LlmHttpPoolMonitor llmHttpPoolMonitor;
+    
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+
+    @Autowired
+    private KnowledgeSearchService knowledgeSearchService;
+
+    @Autowired
+    private PromptBudgeter promptBudgeter;
+
+    @Autowired
+    private QuestionGenerationProperties questionGenerationProperties;
+
+    @Autowired
+    private QuestionBankProperties questionBankProperties;
+
+    @Autowired
+    private ExecutorService questionGenerationExecutor;
 
     @Value("${xunfei.ppt.appid}")
     private String xunfeiPptAppId;
@@ -78,6 +168,18 @@ public class AIController {
         }
     }
     
+    /**
+     * 流式聊天（SSE逐段返回）
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestBody ChatRequest request) {
+        log.info("收到流式聊天请求: {}", request);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        CompletableFuture<String> future = aiService.streamChat(request, token -> sendStreamToken(emitter, token));
+        bindStreamToEmitter(emitter, future, new HashMap<>());
+        return emitter;
+    }
+    
     /**
      * 简单文本对话
      */
@@ -221,7 +323,7 @@ public class AIController {
                 String userMessage = String.format("为课程《%s》生成教学方案。类型：%s，时长：%s课时，难度：%s。大纲：%s。要求：%s。生成：%s。",
                         courseName, courseType, duration, difficulty, outline, requirements != null ? requirements : "无", String.join("、", options));
 
-                String response = aiService.chatWithSystem(systemPrompt, userMessage);
+                String response = aiService.chatWithSystem(systemPrompt, userMessage, true);
 
                 // 直接解析AI返回的JSON，不使用任何模拟内容
                 result = parseAICourseDesignResponse(response, courseInfo, options);
@@ -242,7 +344,7 @@ public class AIController {
             try {
                 if (slides != null && !slides.isEmpty()) {
                     // 按照讯飞API官方文档的流程：先生成大纲，再生成PPT
-                    ApiClient client = new ApiClient("https://zwapi.xfyun.cn/api/ppt/v2");
+                    ApiClient client = new ApiClient("https://zwapi.xfyun.cn/api/ppt/v2", llmHttpClient);
                     String ts = String.valueOf(System.currentTimeMillis()/1000);
                     ApiAuthAlgorithm auth = new ApiAuthAlgorithm();
                     String signature = auth.getSignature(xunfeiPptAppId, xunfeiPptApiSecret, Long.parseLong(ts));
@@ -491,7 +593,7 @@ public class AIController {
             String userMessage = String.format("为《%s》%s生成%d道%s难度题目。%s%s", 
                 examName, examTypeDesc, questionCount, difficulty, knowledgePointsDesc, questionTypesDesc);
             
-            String response = aiService.chatWithSystem(systemPrompt, userMessage);
+            String response = aiService.chatWithSystem(systemPrompt, userMessage, true);
             
             // 尝试解析AI返回的JSON格式
             Map<String, Object> result = parseExamFromResponse(response, data);
@@ -1055,8 +1157,10 @@ public class AIController {
             result.put("grade", grade);
             result.put("suggestions", overallSuggestion);
             
-            // 异步生成AI分析（不阻塞响应）
-            generateAIAnalysisAsync(analysis, questions, topic);
+            // 异步生成AI分析（不阻塞响应），前端凭analysisJobId查询进度
+            int analysisBatchSize = resolveAnalysisBatchSize(data.get("analysisBatchSize"));
+            String analysisJobId = generateAIAnalysisAsync(analysis, questions, topic, analysisBatchSize);
+            result.put("analysisJobId", analysisJobId);
             
             return Result.success("练习评测成功", result);
         } catch (Exception e) {
@@ -1065,62 +1169,183 @@ public class AIController {
         }
     }
     
+    /**
+     * 解析请求中的分析批大小：无法解析时使用配置的默认值，并限制在1到配置上限之间
+     */
+    private int resolveAnalysisBatchSize(Object requested) {
+        int batchSize = aiJobProperties.getAnalysisBatchSize();
+        if (requested != null) {
+            try {
+                batchSize = Integer.parseInt(requested.toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("分析批大小参数无效: {}，使用默认值{}", requested, batchSize);
+            }
+        }
+        return Math.max(1, Math.min(batchSize, Math.max(1, aiJobProperties.getMaxAnalysisBatchSize())));
+    }
+    
     /**
      * 异步生成AI分析
+     * 提交到AI任务队列，由任务队列统一控制并发和调用速率
+     * @param batchSize 每次大模型调用打包的题目数，大于1时使用批量分析
+     * @return 分析任务ID；队列已满时返回null，各题保留基础分析
+     */
+    private String generateAIAnalysisAsync(List<Map<String, Object>> analysis, List<Map<String, Object>> questions,
+                                           String topic, int batchSize) {
+        String jobId;
+        if (batchSize > 1) {
+            jobId = aiJobService.submitBatched("practice-analysis", analysis, batchSize,
+                    (indices, items) -> applyBatchAnalysis(indices, items, questions, topic));
+        } else {
+            jobId = aiJobService.submit("practice-analysis", analysis,
+                    (i, analysisItem) -> applyDetailedAnalysis(i, analysisItem, questions.get(i), topic));
+        }
+        
+        if (jobId == null) {
+            log.warn("AI分析任务被拒绝，使用基础分析");
+            for (Map<String, Object> analysisItem : analysis) {
+                analysisItem.put("needsAIAnalysis", false);
+            }
+        }
+        return jobId;
+    }
+    
+    /**
+     * 为单道题调用AI生成详细分析并写回分析项，调用前获取一次限流许可
      */
-    private void generateAIAnalysisAsync(List<Map<String, Object>> analysis, List<Map<String, Object>> questions, String topic) {
-        // 使用线程池异步处理
-        new Thread(() -> {
-            for (int i = 0; i < analysis.size(); i++) {
-                try {
-                    Map<String, Object> analysisItem = analysis.get(i);
-                    Map<String, Object> question = questions.get(i);
-                    
-                    // 检查是否需要AI分析
-                    if (!Boolean.TRUE.equals(analysisItem.get("needsAIAnalysis"))) {
-                        continue;
-                    }
-                    
-                    String userAnswer = (String) analysisItem.get("userAnswer");
-                    String correctAnswer = (String) analysisItem.get("correctAnswer");
-                    Boolean isCorrect = (Boolean) analysisItem.get("isCorrect");
-                    String questionType = (String) analysisItem.get("type");
-                    
-                    // 调用AI生成详细分析
-                    String aiAnalysis = "";
-                    try {
-                        String systemPrompt = buildDetailedAnalysisPrompt(questionType, topic);
-                        String userMessage = buildDetailedAnalysisMessage(question, userAnswer, correctAnswer, isCorrect);
-                        aiAnalysis = aiService.chatWithSystem(systemPrompt, userMessage);
-                        
-                        if (aiAnalysis != null && !aiAnalysis.trim().isEmpty() && !aiAnalysis.contains("API密钥未配置")) {
-                            // 更新分析结果
-                            analysisItem.put("detailedAnalysis", aiAnalysis);
-                            
-                            // 提取学习建议
-                            String suggestion = extractSuggestionFromAnalysis(aiAnalysis);
-                            if (suggestion != null && !suggestion.trim().isEmpty()) {
-                                analysisItem.put("suggestion", suggestion);
-                            }
-                            
-                            log.info("第{}题AI分析生成成功", i + 1);
-                        }
-                    } catch (Exception e) {
-                        log.warn("第{}题AI分析生成失败: {}", i + 1, e.getMessage());
-                    }
-                    
-                    // 标记AI分析完成
-                    analysisItem.put("needsAIAnalysis", false);
-                    
-                    // 添加延迟避免API限流
-                    Thread.sleep(1000);
-                    
-                } catch (Exception e) {
-                    log.error("异步AI分析处理失败", e);
-                }
+    private void applyDetailedAnalysis(int index, Map<String, Object> analysisItem, Map<String, Object> question,
+                                       String topic) throws InterruptedException {
+        // 检查是否需要AI分析
+        if (!Boolean.TRUE.equals(analysisItem.get("needsAIAnalysis"))) {
+            return;
+        }
+        try {
+            String userAnswer = (String) analysisItem.get("userAnswer");
+            String correctAnswer = (String) analysisItem.get("correctAnswer");
+            Boolean isCorrect = (Boolean) analysisItem.get("isCorrect");
+            String questionType = (String) analysisItem.get("type");
+            
+            // 调用AI生成详细分析
+            String systemPrompt = buildDetailedAnalysisPrompt(questionType, topic);
+            String userMessage = buildDetailedAnalysisMessage(question, userAnswer, correctAnswer, isCorrect);
+            aiJobService.acquireCallPermit();
+            String aiAnalysis = aiService.chatWithSystem(systemPrompt, userMessage);
+            
+            if (aiAnalysis != null && !aiAnalysis.trim().isEmpty() && !aiAnalysis.contains("API密钥未配置")) {
+                putAIAnalysis(analysisItem, aiAnalysis);
+                log.info("第{}题AI分析生成成功", index + 1);
+            }
+        } finally {
+            // 标记AI分析完成
+            analysisItem.put("needsAIAnalysis", false);
+        }
+    }
+    
+    /**
+     * 把一批题目打包进一次AI调用，按返回的JSON数组拆回各分析项；
+     * 返回结果缺失或无法解析的题目退回逐题分析；批量调用和每次逐题调用各占用一次限流许可
+     */
+    private void applyBatchAnalysis(List<Integer> indices, List<Map<String, Object>> items,
+                                    List<Map<String, Object>> questions, String topic) throws InterruptedException {
+        List<Integer> pending = new ArrayList<>();
+        for (int k = 0; k < indices.size(); k++) {
+            if (Boolean.TRUE.equals(items.get(k).get("needsAIAnalysis"))) {
+                pending.add(k);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.size() == 1) {
+            int k = pending.get(0);
+            applyDetailedAnalysis(indices.get(k), items.get(k), questions.get(indices.get(k)), topic);
+            return;
+        }
+        
+        StringBuilder userMessage = new StringBuilder();
+        for (int n = 0; n < pending.size(); n++) {
+            int k = pending.get(n);
+            Map<String, Object> item = items.get(k);
+            userMessage.append("【第").append(n + 1).append("题】（")
+                    .append(getQuestionTypeName((String) item.get("type"))).append("）\n");
+            userMessage.append(buildQuestionDescription(questions.get(indices.get(k)),
+                    (String) item.get("userAnswer"), (String) item.get("correctAnswer"), (Boolean) item.get("isCorrect")));
+            userMessage.append("\n");
+        }
+        userMessage.append("请按要求为以上").append(pending.size()).append("道题目分别提供详细的分析和指导。");
+        
+        Map<Integer, String> results = new HashMap<>();
+        aiJobService.acquireCallPermit();
+        try {
+            String response = aiService.chatWithSystem(buildBatchAnalysisPrompt(topic, pending.size()), userMessage.toString());
+            results = parseBatchAnalysisResponse(response);
+            log.info("批量AI分析返回{}/{}道题的结果", results.size(), pending.size());
+        } catch (Exception e) {
+            log.warn("批量AI分析失败，改为逐题分析: {}", e.getMessage());
+        }
+        
+        for (int n = 0; n < pending.size(); n++) {
+            int k = pending.get(n);
+            Map<String, Object> item = items.get(k);
+            String aiAnalysis = results.get(n + 1);
+            if (aiAnalysis != null && !aiAnalysis.trim().isEmpty()) {
+                putAIAnalysis(item, aiAnalysis);
+                item.put("needsAIAnalysis", false);
+            } else {
+                applyDetailedAnalysis(indices.get(k), item, questions.get(indices.get(k)), topic);
+            }
+        }
+    }
+    
+    /**
+     * 写入AI分析及从中提取的学习建议
+     */
+    private void putAIAnalysis(Map<String, Object> analysisItem, String aiAnalysis) {
+        analysisItem.put("detailedAnalysis", aiAnalysis);
+        String suggestion = extractSuggestionFromAnalysis(aiAnalysis);
+        if (suggestion != null && !suggestion.trim().isEmpty()) {
+            analysisItem.put("suggestion", suggestion);
+        }
+    }
+    
+    /**
+     * 构建批量分析的AI提示词，要求返回JSON数组
+     */
+    private String buildBatchAnalysisPrompt(String topic, int count) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("你是一个专业的教学分析助手，请为学生的多道答题情况分别提供详细的分析和指导。");
+        prompt.append("每道题请从以下角度进行分析：");
+        prompt.append("1. 答案正确性分析；2. 错误原因分析（如果答错）；3. 知识点梳理；4. 解题思路；5. 学习建议；6. 相关练习。");
+        prompt.append("请用中文回答，语言要通俗易懂，适合学生理解。主题是：").append(topic).append("。");
+        prompt.append("必须只返回一个JSON数组，共").append(count).append("个元素，不要包含其他内容，格式如下：");
+        prompt.append("[{\"index\":1,\"analysis\":\"第1题的分析内容（可使用markdown）\"},{\"index\":2,\"analysis\":\"第2题的分析内容\"}]");
+        return prompt.toString();
+    }
+    
+    /**
+     * 解析批量分析结果，返回 题号(从1开始) -> 分析内容
+     */
+    private Map<Integer, String> parseBatchAnalysisResponse(String response) throws IOException {
+        Map<Integer, String> results = new HashMap<>();
+        if (response == null) {
+            return results;
+        }
+        String json = response.replaceAll("```json\\s*", "").replaceAll("```\\s*", "").trim();
+        int start = json.indexOf('[');
+        int end = json.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            return results;
+        }
+        List<Map<String, Object>> items = objectMapper.readValue(json.substring(start, end + 1),
+                new com.fasterxml.jackson.core.type.TypeReference<List<Map<String, Object>>>() {});
+        for (Map<String, Object> item : items) {
+            Object index = item.get("index");
+            Object analysisText = item.get("analysis");
+            if (index instanceof Number && analysisText != null) {
+                results.put(((Number) index).intValue(), analysisText.toString());
             }
-            log.info("所有题目的AI分析生成完成");
-        }).start();
+        }
+        return results;
     }
     
     /**
@@ -1303,6 +1528,15 @@ public class AIController {
      */
     private String buildDetailedAnalysisMessage(Map<String, Object> question, String userAnswer, 
                                                String correctAnswer, Boolean isCorrect) {
+        return buildQuestionDescription(question, userAnswer, correctAnswer, isCorrect)
+                + "请为这道题目提供详细的分析和指导。";
+    }
+    
+    /**
+     * 描述题目、答案及作答情况
+     */
+    private String buildQuestionDescription(Map<String, Object> question, String userAnswer, 
+                                            String correctAnswer, Boolean isCorrect) {
         StringBuilder message = new StringBuilder();
         message.append("题目：").append(question.get("title")).append("\n");
         
@@ -1322,8 +1556,6 @@ public class AIController {
             message.append("题目解析：").append(question.get("explanation")).append("\n");
         }
         
-        message.append("请为这道题目提供详细的分析和指导。");
-        
         return message.toString();
     }
     
@@ -1441,31 +1673,31 @@ public class AIController {
                 questionTypes = Arrays.asList("choice");
             }
 
-            // AI生成不同类型的题目
-            List<Map<String, Object>> questions = new ArrayList<>();
-            
-            // 根据题目类型分别生成
+            // 先确定各题型数量，本地题库能提供的部分不再调用AI
+            Map<String, Integer> typeCounts = new LinkedHashMap<>();
+            Map<String, List<Map<String, Object>>> localQuestions = new HashMap<>();
+            List<Map<String, Object>> existing = new ArrayList<>();
             for (String questionType : questionTypes) {
                 int typeCount = typeConfig != null && typeConfig.containsKey(questionType) ? 
                     typeConfig.get(questionType) : 
                     Math.max(1, count / questionTypes.size());
                 
-                List<Map<String, Object>> typeQuestions;
-                
-                // 对于选择题且主题是tensorflow-js时，优先使用本地题库
-                if ("choice".equals(questionType) && "tensorflow-js".equals(topic)) {
-                    typeQuestions = generateChoiceQuestionsFromLocal(topic, difficulty, typeCount);
-                    // 如果本地题库不足，用AI补充
-                    if (typeQuestions.size() < typeCount) {
-                        List<Map<String, Object>> aiQuestions = generateQuestionsByType(
-                            topic, difficulty, questionType, typeCount - typeQuestions.size());
-                        typeQuestions.addAll(aiQuestions);
-                    }
-                } else {
-                    typeQuestions = generateQuestionsByType(topic, difficulty, questionType, typeCount);
+                // 对于选择题且主题是tensorflow-js时，优先使用本地题库，不足部分用AI补充
+                if ("choice".equals(questionType) && "tensorflow-js".equals(topic) && !localQuestions.containsKey(questionType)) {
+                    List<Map<String, Object>> local = generateChoiceQuestionsFromLocal(topic, difficulty, typeCount);
+                    localQuestions.put(questionType, local);
+                    existing.addAll(local);
+                    typeCount -= local.size();
                 }
-                
-                questions.addAll(typeQuestions);
+                typeCounts.merge(questionType, typeCount, Integer::sum);
+            }
+            
+            // 各题型并发批量生成，合并时统一去重
+            Map<String, List<Map<String, Object>>> generated = generateQuestionsByTypes(topic, difficulty, typeCounts, existing);
+            List<Map<String, Object>> questions = new ArrayList<>();
+            for (String questionType : typeCounts.keySet()) {
+                questions.addAll(localQuestions.getOrDefault(questionType, Collections.emptyList()));
+                questions.addAll(generated.get(questionType));
             }
             
             // 如果指定了总数但没有具体配置，则调整题目数量
@@ -1473,14 +1705,15 @@ public class AIController {
                 while (questions.size() > count) {
                     questions.remove(questions.size() - 1);
                 }
-            while (questions.size() < count) {
-                    // 随机选择一种类型补充
-                    String randomType = questionTypes.get((int) (Math.random() * questionTypes.size()));
-                    List<Map<String, Object>> additionalQuestions = generateQuestionsByType(
-                        topic, difficulty, randomType, 1);
-                    if (!additionalQuestions.isEmpty()) {
-                        questions.addAll(additionalQuestions);
+                if (questions.size() < count) {
+                    // 差额随机分配到各题型，一次批量补齐
+                    Map<String, Integer> additionalCounts = new LinkedHashMap<>();
+                    for (int i = questions.size(); i < count; i++) {
+                        String randomType = questionTypes.get((int) (Math.random() * questionTypes.size()));
+                        additionalCounts.merge(randomType, 1, Integer::sum);
                     }
+                    generateQuestionsByTypes(topic, difficulty, additionalCounts, questions).values()
+                        .forEach(questions::addAll);
                 }
             }
             
@@ -1635,100 +1868,229 @@ public class AIController {
     }
     
     /**
-     * 根据题目类型生成题目
-     */
-    private List<Map<String, Object>> generateQuestionsByType(String topic, String difficulty, String questionType, int count) {
-        List<Map<String, Object>> questions = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            try {
-                // 编程题优先调用AI接口
-                if ("coding".equals(questionType) || "programming".equals(questionType)) {
-                    String systemPrompt = getSystemPromptByType(questionType, topic, difficulty);
-                    String userMessage = getUserMessageByType(questionType, topic, difficulty);
-                    systemPrompt += " 这是第" + (i + 1) + "道题目，请确保与之前的题目完全不同。";
-                    String response = aiService.chatWithSystem(systemPrompt, userMessage);
-                    Map<String, Object> question = parseQuestionFromResponse(response, questionType);
-                    if (question != null && !isDuplicateQuestion(question, questions)) {
-                        question.put("type", questionType);
-                        question.put("difficulty", difficulty);
-                        questions.add(question);
-                        continue;
-                    }
+     * 并发生成多种题型的题目
+     * 每种题型按batchSize分批，每批一次大模型调用返回JSON数组，所有题型的各批并发执行；
+     * 合并时与已有题目及已收下的题目去重，数量不足时带上已出题目再补一轮，仍不足时用模拟题补齐；
+     * 每轮到截止时间仍未完成的批次被取消，不再占用出题线程
+     * @param typeCounts 题型 -> 需要的数量
+     * @param existing 已有题目，仅参与去重
+     * @return 题型 -> 题目列表，每种题型恰好为需要的数量
+     */
+    private Map<String, List<Map<String, Object>>> generateQuestionsByTypes(String topic, String difficulty,
+                                                                          Map<String, Integer> typeCounts,
+                                                                          List<Map<String, Object>> existing) {
+        int batchSize = Math.max(1, questionGenerationProperties.getBatchSize());
+        List<Map<String, Object>> accepted = new ArrayList<>(existing);
+        MinHashIndex acceptedIndex = new MinHashIndex();
+        for (Map<String, Object> question : existing) {
+            int[] signature = questionSignature(question);
+            if (signature != null) {
+                acceptedIndex.add(signature);
+            }
+        }
+        Map<String, List<Map<String, Object>>> result = new LinkedHashMap<>();
+        Map<String, Integer> missing = new LinkedHashMap<>();
+        typeCounts.forEach((type, count) -> {
+            result.put(type, new ArrayList<>());
+            if (count > 0) {
+                missing.put(type, count);
+            }
+        });
+        
+        for (int round = 0; round < questionGenerationProperties.getMaxRounds() && !missing.isEmpty(); round++) {
+            List<String> avoidTitles = titlesOf(accepted);
+            Map<String, List<Future<List<Map<String, Object>>>>> futures = new LinkedHashMap<>();
+            int angleOffset = round * batchSize;
+            missing.forEach((type, need) -> {
+                List<Future<List<Map<String, Object>>>> typeFutures = new ArrayList<>();
+                for (int start = 0; start < need; start += batchSize) {
+                    int size = Math.min(batchSize, need - start);
+                    int angle = angleOffset + start;
+                    typeFutures.add(submitQuestionBatch(topic, difficulty, type, size, angle, avoidTitles));
                 }
-                // 其他题型或AI失败时走原有逻辑
-                String systemPrompt = getSystemPromptByType(questionType, topic, difficulty);
-                String userMessage = getUserMessageByType(questionType, topic, difficulty);
-                systemPrompt += " 这是第" + (i + 1) + "道题目，请确保与之前的题目完全不同。";
-                String response = aiService.chatWithSystem(systemPrompt, userMessage);
-                Map<String, Object> question = parseQuestionFromResponse(response, questionType);
-                if (question != null && !isDuplicateQuestion(question, questions)) {
-                    question.put("type", questionType);
-                    question.put("difficulty", difficulty);
-                    questions.add(question);
-                } else {
-                    Map<String, Object> mockQuestion = createMockQuestionByType(questionType, topic, difficulty, i);
-                    while (isDuplicateQuestion(mockQuestion, questions)) {
-                        mockQuestion = createMockQuestionByType(questionType, topic, difficulty, i);
+                futures.put(type, typeFutures);
+            });
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(questionGenerationProperties.getTimeoutSeconds());
+            futures.forEach((type, typeFutures) -> {
+                List<Map<String, Object>> typeQuestions = result.get(type);
+                for (Future<List<Map<String, Object>>> future : typeFutures) {
+                    for (Map<String, Object> question : awaitQuestionBatch(future, type, deadline)) {
+                        int[] signature = questionSignature(question);
+                        if (typeQuestions.size() < typeCounts.get(type) && !isDuplicateQuestion(signature, acceptedIndex)) {
+                            typeQuestions.add(question);
+                            accepted.add(question);
+                            acceptedIndex.add(signature);
+                        }
                     }
-                    questions.add(mockQuestion);
                 }
-            } catch (Exception e) {
-                log.error("生成{}类型题目失败 (第{}道)", questionType, i + 1, e);
-                Map<String, Object> mockQuestion = createMockQuestionByType(questionType, topic, difficulty, i);
-                while (isDuplicateQuestion(mockQuestion, questions)) {
-                    mockQuestion = createMockQuestionByType(questionType, topic, difficulty, i);
+            });
+            
+            missing.clear();
+            typeCounts.forEach((type, count) -> {
+                if (result.get(type).size() < count) {
+                    missing.put(type, count - result.get(type).size());
+                }
+            });
+        }
+        
+        // 多轮后仍不足的用模拟题补齐
+        missing.forEach((type, need) -> {
+            log.warn("{}类型AI出题不足，使用{}道模拟题补齐", getQuestionTypeName(type), need);
+            List<Map<String, Object>> typeQuestions = result.get(type);
+            for (int i = 0; i < need; i++) {
+                Map<String, Object> mockQuestion = createMockQuestionByType(type, topic, difficulty, typeQuestions.size());
+                for (int attempt = 0; attempt < MOCK_DEDUP_ATTEMPTS
+                        && isDuplicateQuestion(questionSignature(mockQuestion), acceptedIndex); attempt++) {
+                    mockQuestion = createMockQuestionByType(type, topic, difficulty, typeQuestions.size() + attempt + 1);
+                }
+                typeQuestions.add(mockQuestion);
+                accepted.add(mockQuestion);
+                int[] signature = questionSignature(mockQuestion);
+                if (signature != null) {
+                    acceptedIndex.add(signature);
                 }
-                questions.add(mockQuestion);
             }
+        });
+        return result;
+    }
+    
+    /**
+     * 把一批出题提交到出题线程池，执行前先获取全局大模型调用限流许可；
+     * 线程池队列已满时本批直接按失败处理
+     */
+    private Future<List<Map<String, Object>>> submitQuestionBatch(String topic, String difficulty, String questionType,
+                                                                  int size, int angle, List<String> avoidTitles) {
+        try {
+            return questionGenerationExecutor.submit(() -> {
+                aiJobService.acquireCallPermit();
+                return requestQuestionBatch(topic, difficulty, questionType, size, angle, avoidTitles);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("AI出题线程池已满，{}类型本批{}道按失败处理", getQuestionTypeName(questionType), size);
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
-        return questions;
     }
     
     /**
-     * 检查题目是否重复
+     * 一次大模型调用生成一批同类型题目
+     * @param angle 本批第一道题侧重的出题角度序号，不同批次错开角度以减少重复
+     * @param avoidTitles 已出过的题目标题，提示模型避开
      */
-    private boolean isDuplicateQuestion(Map<String, Object> newQuestion, List<Map<String, Object>> existingQuestions) {
-        if (newQuestion == null || !newQuestion.containsKey("title")) {
-            return true;
+    private List<Map<String, Object>> requestQuestionBatch(String topic, String difficulty, String questionType, int size,
+                                                           int angle, List<String> avoidTitles) {
+        StringBuilder systemPrompt = new StringBuilder(getSystemPromptByType(questionType, topic, difficulty));
+        systemPrompt.append("本次需要一次生成").append(size).append("道互不相同的题目：请返回JSON数组，数组中每个元素都采用上面的格式，")
+                .append("不要输出数组以外的任何文字。各题依次侧重以下角度：");
+        for (int i = 0; i < size; i++) {
+            systemPrompt.append(i + 1).append(". ").append(QUESTION_ANGLES[(angle + i) % QUESTION_ANGLES.length]).append("；");
+        }
+        if (!avoidTitles.isEmpty()) {
+            systemPrompt.append("以下题目已经出过，不要重复或仅做改写：");
+            for (String title : avoidTitles) {
+                systemPrompt.append("【").append(title).append("】");
+            }
         }
+        String userMessage = String.format("请一次生成%d道关于'%s'的%s难度%s，严格只返回包含%d个元素的JSON数组。",
+                size, topic, difficulty, getQuestionTypeName(questionType), size);
         
-        String newTitle = (String) newQuestion.get("title");
-        for (Map<String, Object> existingQuestion : existingQuestions) {
-            if (existingQuestion.containsKey("title")) {
-                String existingTitle = (String) existingQuestion.get("title");
-                // 简单的重复检查，如果标题相似度超过80%则认为重复
-                if (calculateSimilarity(newTitle, existingTitle) > 0.8) {
-                    return true;
+        String response = aiService.chatWithSystem(systemPrompt.toString(), userMessage, true);
+        return parseQuestionBatchFromResponse(response, questionType, difficulty);
+    }
+    
+    /**
+     * 在截止时间前等待一批题目，失败或超时返回空列表；超时的批次会被取消（排队中的不再执行，执行中的被中断）
+     */
+    private List<Map<String, Object>> awaitQuestionBatch(Future<List<Map<String, Object>>> future,
+                                                         String questionType, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{}类型批量出题超时，已取消", getQuestionTypeName(questionType));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("{}类型批量出题失败: {}", getQuestionTypeName(questionType), e.getCause().getMessage());
+        }
+        return Collections.emptyList();
+    }
+    
+    /**
+     * 从批量出题的响应中解析题目数组，兼容模型返回单个对象或{"questions":[...]}的情况
+     */
+    private List<Map<String, Object>> parseQuestionBatchFromResponse(String response, String questionType, String difficulty) {
+        List<Map<String, Object>> questions = new ArrayList<>();
+        List<Map<String, Object>> items = new ArrayList<>();
+        try {
+            JsonNode root = objectMapper.readTree(preprocessJsonResponse(response));
+            if (root.isObject() && root.has("questions")) {
+                root = root.get("questions");
+            }
+            if (root.isArray()) {
+                for (JsonNode node : root) {
+                    if (node.isObject()) {
+                        items.add(objectMapper.convertValue(node, new TypeReference<Map<String, Object>>() {}));
+                    }
                 }
+            } else if (root.isObject()) {
+                items.add(objectMapper.convertValue(root, new TypeReference<Map<String, Object>>() {}));
+            }
+        } catch (Exception e) {
+            log.warn("批量题目JSON解析失败，尝试按单题解析: {}", e.getMessage());
+            Map<String, Object> question = parseQuestionFromResponse(response, questionType);
+            if (question != null) {
+                items.add(question);
+            }
+        }
+        
+        for (Map<String, Object> question : items) {
+            if (question.get("title") instanceof String && validateQuestionStructure(question, questionType)) {
+                question.put("type", questionType);
+                question.put("difficulty", difficulty);
+                questions.add(question);
             }
         }
-        return false;
+        return questions;
     }
     
     /**
-     * 计算两个字符串的相似度
+     * 已有题目的标题（截断），用于提示模型避开
      */
-    private double calculateSimilarity(String str1, String str2) {
-        if (str1 == null || str2 == null) {
-            return 0.0;
+    private List<String> titlesOf(List<Map<String, Object>> questions) {
+        List<String> titles = new ArrayList<>();
+        for (int i = questions.size() - 1; i >= 0 && titles.size() < MAX_AVOID_TITLES; i--) {
+            Object title = questions.get(i).get("title");
+            if (title != null) {
+                String text = title.toString();
+                titles.add(text.length() > MAX_AVOID_TITLE_LENGTH ? text.substring(0, MAX_AVOID_TITLE_LENGTH) : text);
+            }
         }
-        
-        // 简单的相似度计算，基于共同字符的比例
-        String longer = str1.length() > str2.length() ? str1 : str2;
-        String shorter = str1.length() > str2.length() ? str2 : str1;
-        
-        if (longer.length() == 0) {
-            return 1.0;
+        return titles;
+    }
+    
+    /**
+     * 检查题目是否与已收下的题目近似重复（MinHash相似度），没有标题的题目按重复处理
+     */
+    private boolean isDuplicateQuestion(int[] signature, MinHashIndex acceptedIndex) {
+        return signature == null || acceptedIndex.containsSimilar(signature, questionBankProperties.getDuplicateThreshold());
+    }
+    
+    /**
+     * 题目的MinHash签名：标题加各选项
+     */
+    private int[] questionSignature(Map<String, Object> question) {
+        if (question == null || !(question.get("title") instanceof String)) {
+            return null;
         }
-        
-        int commonChars = 0;
-        for (int i = 0; i < shorter.length(); i++) {
-            if (longer.contains(String.valueOf(shorter.charAt(i)))) {
-                commonChars++;
+        List<String> optionTexts = new ArrayList<>();
+        if (question.get("options") instanceof List) {
+            for (Object option : (List<?>) question.get("options")) {
+                optionTexts.add(String.valueOf(option));
             }
         }
-        
-        return (double) commonChars / longer.length();
+        return MinHash.signature((String) question.get("title"), optionTexts);
     }
     
     /**
@@ -1785,26 +2147,6 @@ public class AIController {
         return prompt.toString();
     }
     
-    /**
-     * 根据题目类型获取用户消息
-     */
-    private String getUserMessageByType(String questionType, String topic, String difficulty) {
-        // 增加更多随机性，让AI生成不同的题目
-        String[] variations = {
-            String.format("请生成1道关于'%s'的%s难度%s，要求内容准确、难度适中。请从基础概念角度设计题目。", topic, difficulty, getQuestionTypeName(questionType)),
-            String.format("创建1道%s难度的%s，主题是'%s'，要求题目新颖、有挑战性。请从实际应用场景角度设计题目。", difficulty, getQuestionTypeName(questionType), topic),
-            String.format("设计1道关于'%s'的%s，难度为%s，要求结合实际应用场景。请从技术实现细节角度设计题目。", topic, getQuestionTypeName(questionType), difficulty),
-            String.format("请为'%s'主题生成1道%s难度的%s，要求考察核心知识点。请从性能优化角度设计题目。", topic, difficulty, getQuestionTypeName(questionType)),
-            String.format("制作1道%s，主题是'%s'，难度%s，要求题目有深度和广度。请从最佳实践角度设计题目。", getQuestionTypeName(questionType), topic, difficulty),
-            String.format("生成1道关于'%s'的%s难度%s，要求题目独特、有启发性。请从常见问题解决角度设计题目。", topic, difficulty, getQuestionTypeName(questionType)),
-            String.format("创建1道%s难度的%s，主题是'%s'，要求题目实用、有价值。请从架构设计角度设计题目。", difficulty, getQuestionTypeName(questionType), topic),
-            String.format("设计1道关于'%s'的%s，难度为%s，要求题目全面、系统。请从工具使用技巧角度设计题目。", topic, getQuestionTypeName(questionType), difficulty),
-            String.format("请为'%s'主题生成1道%s难度的%s，要求题目创新、前沿。请从发展趋势角度设计题目。", topic, difficulty, getQuestionTypeName(questionType)),
-            String.format("制作1道%s，主题是'%s'，难度%s，要求题目经典、权威。请从理论基础角度设计题目。", getQuestionTypeName(questionType), topic, difficulty)
-        };
-        return variations[(int)(Math.random() * variations.length)];
-    }
-    
     /**
      * 从AI响应中解析题目
      */
@@ -2364,88 +2706,11 @@ public class AIController {
         log.info("收到知识库搜索请求: {}", data);
         try {
             String keyword = (String) data.get("keyword");
+            String type = (String) data.get("type");
+            int page = data.get("page") != null ? Integer.parseInt(data.get("page").toString()) : 1;
+            int pageSize = data.get("pageSize") != null ? Integer.parseInt(data.get("pageSize").toString()) : 0;
             
-            // 模拟搜索结果
-            List<Map<String, Object>> results = new ArrayList<>();
-            
-            // 基础概念
-            Map<String, Object> result1 = new HashMap<>();
-            result1.put("title", "TensorFlow.js基础概念");
-            result1.put("category", "tensorflow-js");
-            result1.put("topic", "basics");
-            result1.put("summary", "包含TensorFlow.js的核心概念和基本用法");
-            results.add(result1);
-            
-            // 张量操作
-            Map<String, Object> result2 = new HashMap<>();
-            result2.put("title", "张量操作详解");
-            result2.put("category", "tensorflow-js");
-            result2.put("topic", "tensors");
-            result2.put("summary", "详细介绍TensorFlow.js中的张量操作");
-            results.add(result2);
-            
-            // 项目实践
-            Map<String, Object> result3 = new HashMap<>();
-            result3.put("title", "汽车油耗预测项目");
-            result3.put("category", "tensorflow-js-projects");
-            result3.put("topic", "car-mpg-prediction");
-            result3.put("summary", "使用TensorFlow.js实现汽车油耗预测的完整项目");
-            results.add(result3);
-            
-            Map<String, Object> result4 = new HashMap<>();
-            result4.put("title", "手写数字识别项目");
-            result4.put("category", "tensorflow-js-projects");
-            result4.put("topic", "mnist-recognition");
-            result4.put("summary", "使用CNN实现MNIST手写数字识别的项目");
-            results.add(result4);
-            
-            // 高级应用
-            Map<String, Object> result5 = new HashMap<>();
-            result5.put("title", "模型转换与部署");
-            result5.put("category", "advanced-tensorflow-js");
-            result5.put("topic", "model-conversion");
-            result5.put("summary", "将Python模型转换为TensorFlow.js格式并部署");
-            results.add(result5);
-            
-            Map<String, Object> result6 = new HashMap<>();
-            result6.put("title", "性能优化技巧");
-            result6.put("category", "advanced-tensorflow-js");
-            result6.put("topic", "performance-optimization");
-            result6.put("summary", "TensorFlow.js应用性能优化的最佳实践");
-            results.add(result6);
-            
-            // 综合考点
-            Map<String, Object> result7 = new HashMap<>();
-            result7.put("title", "TensorFlow.js综合考点");
-            result7.put("category", "comprehensive-tensorflow-js");
-            result7.put("topic", "comprehensive-knowledge");
-            result7.put("summary", "涵盖TensorFlow.js所有重要知识点的综合考点");
-            results.add(result7);
-            
-            // 手势识别项目
-            Map<String, Object> result8 = new HashMap<>();
-            result8.put("title", "剪刀石头布手势识别");
-            result8.put("category", "gesture-recognition");
-            result8.put("topic", "rock-paper-scissors");
-            result8.put("summary", "使用TensorFlow.js实现实时手势识别项目");
-            results.add(result8);
-            
-            // 根据关键词过滤结果
-            if (keyword != null && !keyword.trim().isEmpty()) {
-                results = results.stream()
-                    .filter(result -> {
-                        String title = (String) result.get("title");
-                        String summary = (String) result.get("summary");
-                        return title.toLowerCase().contains(keyword.toLowerCase()) ||
-                               summary.toLowerCase().contains(keyword.toLowerCase());
-                    })
-                    .collect(java.util.stream.Collectors.toList());
-            }
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("keyword", keyword);
-            response.put("results", results);
-            response.put("total", results.size());
+            Map<String, Object> response = knowledgeSearchService.search(keyword, type, page, pageSize);
             
             return Result.success("知识库搜索成功", response);
         } catch (Exception e) {
@@ -2580,7 +2845,7 @@ public class AIController {
         
         // 尝试简单的AI调用测试
         try {
-            String testResponse = aiService.chatWithSystem("你是一个测试助手", "请回复'OK'");
+            String testResponse = aiService.chatWithSystem("你是一个测试助手", "请回复'OK'", true);
             healthData.put("aiTest", "success");
             healthData.put("aiResponse", testResponse);
         } catch (Exception e) {
@@ -2591,6 +2856,38 @@ public class AIController {
         return Result.success("健康检查完成", healthData);
     }
     
+    /**
+     * 大模型HTTP连接池使用情况
+     */
+    @GetMapping("/http-pool-stats")
+    public Result<Object> getHttpPoolStats() {
+        return Result.success("获取连接池状态成功", llmHttpPoolMonitor.getStats());
+    }
+    
+    /**
+     * 大模型响应缓存命中情况
+     */
+    @GetMapping("/cache-stats")
+    public Result<Object> getCacheStats() {
+        return Result.success("获取缓存状态成功", llmResponseCache.getStats());
+    }
+    
+    /**
+     * 各接口提示词token统计
+     */
+    @GetMapping("/prompt-token-stats")
+    public Result<Object> getPromptTokenStats() {
+        return Result.success("获取提示词token统计成功", promptBudgeter.getStats());
+    }
+    
+    /**
+     * 统一检索索引状态
+     */
+    @GetMapping("/knowledge-search-stats")
+    public Result<Object> getKnowledgeSearchStats() {
+        return Result.success("获取检索索引状态成功", knowledgeSearchService.getIndexStats());
+    }
+    
     /**
      * 文件下载接口
      */
@@ -2729,12 +3026,25 @@ public class AIController {
     
     /**
      * 检查AI分析状态
+     * 优先按jobId从AI任务队列读取；未传jobId时兼容旧版前端回传的analysis列表
      */
     @PostMapping("/check-analysis-status")
     public Result<Object> checkAnalysisStatus(@RequestBody Map<String, Object> data) {
-        log.info("收到检查AI分析状态请求: {}", data);
+        log.info("收到检查AI分析状态请求: jobId={}", data.get("jobId"));
         try {
-            List<Map<String, Object>> analysis = (List<Map<String, Object>>) data.get("analysis");
+            List<Map<String, Object>> analysis;
+            String jobStatus = null;
+            Object jobId = data.get("jobId");
+            if (jobId != null) {
+                Map<String, Object> job = aiJobService.getJob(jobId.toString());
+                if (job == null) {
+                    return Result.error("分析任务不存在或已过期");
+                }
+                analysis = (List<Map<String, Object>>) job.get("items");
+                jobStatus = (String) job.get("status");
+            } else {
+                analysis = (List<Map<String, Object>>) data.get("analysis");
+            }
             if (analysis == null) {
                 return Result.error("分析数据不能为空");
             }
@@ -2754,6 +3064,11 @@ public class AIController {
             Map<String, Object> result = new HashMap<>();
             result.put("statusList", statusList);
             result.put("allCompleted", statusList.stream().noneMatch(s -> Boolean.TRUE.equals(s.get("needsAIAnalysis"))));
+            if (jobId != null) {
+                result.put("jobId", jobId);
+                result.put("jobStatus", jobStatus);
+                result.put("analysis", analysis);
+            }
             
             return Result.success("检查AI分析状态成功", result);
         } catch (Exception e) {
@@ -2762,6 +3077,14 @@ public class AIController {
         }
     }
     
+    /**
+     * AI任务队列运行指标
+     */
+    @GetMapping("/job-metrics")
+    public Result<Object> getJobMetrics() {
+        return Result.success("获取AI任务队列指标成功", aiJobService.getMetrics());
+    }
+    
     /**
      * 手动触发单道题的AI分析
      */
@@ -2821,14 +3144,19 @@ public class AIController {
             String documentContent = (String) data.get("documentContent");
             Object resourceIdObj = data.get("resourceId");
             
-            // 构建系统提示词
-            String systemPrompt = "你是一个专业的文档分析助手。用户会提供一个文档内容，然后询问关于该文档的问题。请基于文档内容准确、详细地回答用户的问题。如果问题超出文档范围，请明确说明。\n\n文档内容：\n" + documentContent;
+            // 构建系统提示词，文档超出预算时只保留与问题最相关的片段
+            PromptBudgeter.FittedText fitted = promptBudgeter.fit(PROMPT_CHAT_WITH_DOCUMENT, documentContent, question,
+                    TokenEstimator.estimate(DOCUMENT_CHAT_PROMPT) + TokenEstimator.estimate(question));
+            String systemPrompt = DOCUMENT_CHAT_PROMPT + fitted.getText();
+            int promptTokens = promptBudgeter.record(PROMPT_CHAT_WITH_DOCUMENT, systemPrompt, question);
             
             String response = aiService.chatWithSystem(systemPrompt, question);
             
             Map<String, Object> result = new HashMap<>();
             result.put("answer", response);
             result.put("resourceId", resourceIdObj);
+            result.put("promptTokens", promptTokens);
+            result.put("documentTruncated", fitted.isTruncated());
             
             return Result.success("文档对话成功", result);
         } catch (Exception e) {
@@ -2837,6 +3165,71 @@ public class AIController {
         }
     }
 
+    /**
+     * 根据文档内容进行流式对话（SSE逐段返回）
+     */
+    @PostMapping(value = "/chat-with-document/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatWithDocumentStream(@RequestBody Map<String, Object> data) {
+        log.info("收到流式文档对话请求: resourceId={}", data.get("resourceId"));
+        String question = (String) data.get("question");
+        String documentContent = (String) data.get("documentContent");
+        
+        PromptBudgeter.FittedText fitted = promptBudgeter.fit(PROMPT_CHAT_WITH_DOCUMENT, documentContent, question,
+                TokenEstimator.estimate(DOCUMENT_CHAT_PROMPT) + TokenEstimator.estimate(question));
+        String systemPrompt = DOCUMENT_CHAT_PROMPT + fitted.getText();
+        int promptTokens = promptBudgeter.record(PROMPT_CHAT_WITH_DOCUMENT, systemPrompt, question);
+        
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        CompletableFuture<String> future = aiService.streamChatWithSystem(systemPrompt, question,
+                token -> sendStreamToken(emitter, token));
+        Map<String, Object> extra = new HashMap<>();
+        extra.put("resourceId", data.get("resourceId"));
+        extra.put("promptTokens", promptTokens);
+        extra.put("documentTruncated", fitted.isTruncated());
+        bindStreamToEmitter(emitter, future, extra);
+        return emitter;
+    }
+    
+    /**
+     * 推送一段增量文本
+     */
+    private void sendStreamToken(SseEmitter emitter, String token) {
+        try {
+            emitter.send(SseEmitter.event().name("token").data(token));
+        } catch (IOException e) {
+            // 客户端已断开，抛出异常以终止上游读取
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 将流式调用的生命周期绑定到SseEmitter：完成时推送done事件，失败时推送error事件，客户端断开时取消上游调用
+     */
+    private void bindStreamToEmitter(SseEmitter emitter, CompletableFuture<String> future, Map<String, Object> extra) {
+        emitter.onTimeout(() -> future.cancel(true));
+        emitter.onError(e -> future.cancel(true));
+        emitter.onCompletion(() -> future.cancel(true));
+        
+        future.whenComplete((answer, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            try {
+                if (error != null) {
+                    log.error("流式对话失败", error);
+                    emitter.send(SseEmitter.event().name("error").data("AI服务调用异常：" + error.getMessage()));
+                } else {
+                    Map<String, Object> done = new HashMap<>(extra);
+                    done.put("answer", answer);
+                    emitter.send(SseEmitter.event().name("done").data(done));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+    }
+
     /**
      * 生成思维导图
      */
@@ -2850,7 +3243,11 @@ public class AIController {
             // 构建系统提示词
             String systemPrompt = "你是一个专业的思维导图生成助手。请基于提供的文档内容，生成一个结构清晰、层次分明的思维导图。请使用HTML格式输出，包含适当的CSS样式，使思维导图美观易读。思维导图应该包含主题、主要分支和子分支，体现文档的核心内容和逻辑结构。";
             
-            String userMessage = "请基于以下文档内容生成思维导图：\n\n" + documentContent;
+            String messagePrefix = "请基于以下文档内容生成思维导图：\n\n";
+            PromptBudgeter.FittedText fitted = promptBudgeter.fit(PROMPT_GENERATE_MINDMAP, documentContent, null,
+                    TokenEstimator.estimate(systemPrompt) + TokenEstimator.estimate(messagePrefix));
+            String userMessage = messagePrefix + fitted.getText();
+            int promptTokens = promptBudgeter.record(PROMPT_GENERATE_MINDMAP, systemPrompt, userMessage);
             
             String response = aiService.chatWithSystem(systemPrompt, userMessage);
             
@@ -2863,6 +3260,8 @@ public class AIController {
             Map<String, Object> result = new HashMap<>();
             result.put("mindmapHtml", mindmapHtml);
             result.put("resourceId", resourceIdObj);
+            result.put("promptTokens", promptTokens);
+            result.put("documentTruncated", fitted.isTruncated());
             
             return Result.success("思维导图生成成功", result);
         } catch (Exception e) {
@@ -15,6 +15,7 @@ import com.experiment.pojo.ErrorQuestionAnalysisDTO;
 import com.experiment.pojo.ErrorQuestionTrainingDTO;
 import com.experiment.result.Result;
 import com.experiment.service.ErrorQuestionAnalysisService;
+import com.experiment.utils.ErrorAnalysisCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,6 +30,9 @@ public class ErrorQuestionController {
     @Autowired
     private ErrorQuestionAnalysisService errorQuestionAnalysisService;
 
+    @Autowired
+    private ErrorAnalysisCache errorAnalysisCache;
+
     /**
      * 获取学生的历史错题分析
      */
@@ -176,4 +180,12 @@ public class ErrorQuestionController {
             return Result.error("评估训练效果失败：" + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 错题分析缓存命中情况
+     */
+    @GetMapping("/cache-stats")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success("获取缓存状态成功", errorAnalysisCache.getStats());
+    }
+}
@@ -0,0 +1,82 @@
+package com.experiment.controller;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.experiment.constant.ExportConstants;
+import com.experiment.service.ExportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 成绩数据导出
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin
+public class ExportController {
+    
+    @Autowired
+    private ExportService exportService;
+    
+    /**
+     * 流式导出考试成绩、答题明细或练习成绩
+     * @param dataset exam-results、answers、practice-results
+     * @param format csv（默认）或 xlsx
+     * 过滤条件：考试成绩、答题明细支持 teacherId、courseId、examId、studentId；
+     * 练习成绩支持 teacherId、courseId、practiceId、studentId，给出不支持的条件时返回400
+     */
+    @GetMapping("/{dataset}")
+    public void export(@PathVariable String dataset,
+                       @RequestParam(defaultValue = ExportConstants.FORMAT_CSV) String format,
+                       @RequestParam(required = false) Long teacherId,
+                       @RequestParam(required = false) Long courseId,
+                       @RequestParam(required = false) Long examId,
+                       @RequestParam(required = false) Long practiceId,
+                       @RequestParam(required = false) Long studentId,
+                       HttpServletResponse response) throws Exception {
+        Map<String, Long> filters = new HashMap<>();
+        filters.put("teacherId", teacherId);
+        filters.put("courseId", courseId);
+        filters.put("examId", examId);
+        filters.put("practiceId", practiceId);
+        filters.put("studentId", studentId);
+        
+        try {
+            exportService.validate(dataset, format, filters);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        
+        String fileName = dataset + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + "." + format;
+        response.setContentType(ExportConstants.FORMAT_XLSX.equals(format)
+            ? ExportConstants.CONTENT_TYPE_XLSX : ExportConstants.CONTENT_TYPE_CSV);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        
+        try {
+            exportService.export(dataset, format, filters, response.getOutputStream());
+        } catch (Exception e) {
+            // 响应头和部分数据可能已经发出，此时只能中断连接，客户端会得到不完整的文件
+            log.error("导出失败: {}.{}", dataset, format, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "导出失败: " + e.getMessage());
+            } else {
+                throw e;
+            }
+        }
+    }
+}
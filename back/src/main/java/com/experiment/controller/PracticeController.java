@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.experiment.exception.PracticeException;
 import com.experiment.pojo.Practice;
 import com.experiment.pojo.PracticeAnswerDTO;
 import com.experiment.result.PageResult;
@@ -44,10 +45,20 @@ public class PracticeController {
     }
     
     // 获取练习历史
+    // 不带分页参数时返回全部已完成记录的列表；带 pageSize 或 cursor 时按页返回 records、nextCursor、hasMore
     @GetMapping("/history/{studentId}")
-    public Result getPracticeHistory(@PathVariable Long studentId) {
-        List<Map<String, Object>> history = practiceService.getPracticeHistory(studentId);
-        return Result.success("获取练习历史成功", history);
+    public Result getPracticeHistory(@PathVariable Long studentId,
+                                     @RequestParam(required = false) Integer pageSize,
+                                     @RequestParam(required = false) String cursor) {
+        if (pageSize == null && cursor == null) {
+            List<Map<String, Object>> history = practiceService.getPracticeHistory(studentId);
+            return Result.success("获取练习历史成功", history);
+        }
+        try {
+            return Result.success("获取练习历史成功", practiceService.getPracticeHistoryPage(studentId, pageSize, cursor));
+        } catch (PracticeException e) {
+            return Result.error(e.getMessage());
+        }
     }
     
     // 开始练习
@@ -0,0 +1,20 @@
+package com.experiment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 学生开始练习事件
+ */
+@Getter
+@AllArgsConstructor
+public class PracticeStartedEvent {
+
+    private final Long studentId;
+
+    private final Long practiceId;
+
+    private final LocalDateTime startTime;
+}
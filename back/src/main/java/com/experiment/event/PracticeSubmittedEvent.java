@@ -0,0 +1,35 @@
+package com.experiment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 学生提交练习并完成判分事件（同时写入了对应的student_exam成绩）
+ */
+@Getter
+@AllArgsConstructor
+public class PracticeSubmittedEvent {
+
+    private final Long studentId;
+
+    private final Long practiceId;
+
+    /**
+     * 得分
+     */
+    private final int score;
+
+    /**
+     * 总分
+     */
+    private final int totalScore;
+
+    /**
+     * 正确率（百分比）
+     */
+    private final int accuracy;
+
+    private final LocalDateTime completeTime;
+}
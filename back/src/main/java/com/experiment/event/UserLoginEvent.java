@@ -0,0 +1,20 @@
+package com.experiment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户登录成功事件
+ */
+@Getter
+@AllArgsConstructor
+public class UserLoginEvent {
+
+    private final Long userId;
+
+    private final String role;
+
+    private final LocalDateTime loginTime;
+}
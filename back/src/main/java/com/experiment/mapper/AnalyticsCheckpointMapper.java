@@ -0,0 +1,13 @@
+package com.experiment.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface AnalyticsCheckpointMapper {
+    // 读取检查点内容
+    String selectValue(@Param("key") String key);
+    
+    // 写入检查点（存在则覆盖）
+    int upsert(@Param("key") String key, @Param("value") String value);
+}
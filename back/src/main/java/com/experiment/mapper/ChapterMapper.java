@@ -16,6 +16,9 @@ public interface ChapterMapper {
     // 根据课程ID查询章节列表
     List<Chapter> findByCourseId(@Param("courseId") Long courseId);
     
+    // 根据课程ID一次查询章节及其课时（章节树）
+    List<Chapter> findTreeByCourseId(@Param("courseId") Long courseId);
+    
     // 插入新章节
     int insert(Chapter chapter);
     
@@ -43,10 +43,4 @@ public interface CourseMapper {
     
     // 更新评分
     int updateRating(@Param("id") Long id, @Param("rating") Double rating);
-    
-    // 统计教师的课程数量
-    Integer countByTeacherId(@Param("teacherId") Long teacherId);
-    
-    // 统计选择教师课程的学生总数
-    Integer countStudentsByTeacherId(@Param("teacherId") Long teacherId);
 } 
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.experiment.pojo.QuestionBank;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 题库Mapper
@@ -15,9 +16,9 @@ public interface QuestionBankMapper {
      * 插入题目到题库
      */
     @Insert("INSERT INTO question_bank (subject, knowledge_point, type, difficulty, content, options, " +
-            "answer, analysis, score, source, use_count, avg_score, create_time, update_time) " +
+            "answer, analysis, score, source, use_count, avg_score, minhash, create_time, update_time) " +
             "VALUES (#{subject}, #{knowledgePoint}, #{type}, #{difficulty}, #{content}, #{options}, " +
-            "#{answer}, #{analysis}, #{score}, #{source}, #{useCount}, #{avgScore}, #{createTime}, #{updateTime})")
+            "#{answer}, #{analysis}, #{score}, #{source}, #{useCount}, #{avgScore}, #{minhash}, #{createTime}, #{updateTime})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(QuestionBank questionBank);
     
@@ -26,11 +27,11 @@ public interface QuestionBankMapper {
      */
     @Insert("<script>" +
             "INSERT INTO question_bank (subject, knowledge_point, type, difficulty, content, options, " +
-            "answer, analysis, score, source, use_count, avg_score, create_time, update_time) VALUES " +
+            "answer, analysis, score, source, use_count, avg_score, minhash, create_time, update_time) VALUES " +
             "<foreach collection='list' item='item' separator=','>" +
             "(#{item.subject}, #{item.knowledgePoint}, #{item.type}, #{item.difficulty}, #{item.content}, " +
             "#{item.options}, #{item.answer}, #{item.analysis}, #{item.score}, #{item.source}, " +
-            "#{item.useCount}, #{item.avgScore}, #{item.createTime}, #{item.updateTime})" +
+            "#{item.useCount}, #{item.avgScore}, #{item.minhash}, #{item.createTime}, #{item.updateTime})" +
             "</foreach>" +
             "</script>")
     int batchInsert(List<QuestionBank> questions);
@@ -65,6 +66,18 @@ public interface QuestionBankMapper {
     @Update("UPDATE question_bank SET use_count = use_count + 1, update_time = NOW() WHERE id = #{id}")
     int incrementUseCount(Long id);
     
+    /**
+     * 批量累加使用次数
+     * @param increments 题目ID -> 增加的次数
+     */
+    @Update("<script>" +
+            "UPDATE question_bank SET use_count = use_count + CASE id " +
+            "<foreach collection='increments' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END, update_time = NOW() WHERE id IN " +
+            "<foreach collection='increments' index='id' item='delta' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchIncrementUseCount(@Param("increments") Map<Long, Long> increments);
+    
     /**
      * 更新平均得分率
      */
@@ -86,6 +99,32 @@ public interface QuestionBankMapper {
                          @Param("type") String type,
                          @Param("difficulty") String difficulty);
     
+    /**
+     * 按题目池（学科、知识点、题型、难度）统计使用次数低于freshUseCount的题目数
+     */
+    @Select("SELECT subject, knowledge_point AS knowledgePoint, type, difficulty, " +
+            "SUM(CASE WHEN use_count < #{freshUseCount} THEN 1 ELSE 0 END) AS depth " +
+            "FROM question_bank GROUP BY subject, knowledge_point, type, difficulty")
+    List<Map<String, Object>> selectPoolDepths(@Param("freshUseCount") int freshUseCount);
+    
+    /**
+     * 查询已有的MinHash签名
+     */
+    @Select("SELECT id, minhash FROM question_bank WHERE minhash IS NOT NULL")
+    List<QuestionBank> selectMinhashes();
+    
+    /**
+     * 查询尚未计算MinHash签名的题目
+     */
+    @Select("SELECT id, content, options FROM question_bank WHERE minhash IS NULL LIMIT #{limit}")
+    List<QuestionBank> selectWithoutMinhash(@Param("limit") int limit);
+    
+    /**
+     * 更新MinHash签名
+     */
+    @Update("UPDATE question_bank SET minhash = #{minhash} WHERE id = #{id}")
+    int updateMinhash(@Param("id") Long id, @Param("minhash") String minhash);
+    
     /**
      * 删除题目
      */
@@ -15,6 +15,9 @@ public interface QuestionMapper {
     // 根据ID查询题目
     Question selectById(@Param("id") Long id);
     
+    // 根据多个ID批量查询题目
+    List<Question> selectByIds(@Param("ids") List<Long> ids);
+    
     // 根据考试ID查询题目列表
     List<Question> selectByExamId(@Param("examId") Long examId);
     
@@ -18,6 +18,9 @@ public interface QuestionOptionMapper {
     // 根据题目ID查询选项列表
     List<QuestionOption> selectByQuestionId(@Param("questionId") Long questionId);
     
+    // 根据多个题目ID批量查询选项（按题目、排序号排列）
+    List<QuestionOption> selectByQuestionIds(@Param("questionIds") List<Long> questionIds);
+    
     // 批量插入选项
     int batchInsert(@Param("options") List<QuestionOption> options);
     
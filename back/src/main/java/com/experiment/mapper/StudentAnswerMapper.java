@@ -3,6 +3,7 @@ package com.experiment.mapper;
 import com.experiment.pojo.StudentAnswer;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 import java.util.Map;
@@ -33,9 +34,6 @@ public interface StudentAnswerMapper {
     // 根据学生考试ID删除答案
     int deleteByStudentExamId(@Param("studentExamId") Long studentExamId);
     
-    // 查询学生的所有错题（通过学生ID）
-    List<Map<String, Object>> selectErrorQuestionsByStudentId(@Param("studentId") Long studentId);
-    
     // 查询学生某道题的错误记录
     List<Map<String, Object>> selectErrorRecordsByStudentAndQuestion(@Param("studentId") Long studentId, @Param("questionId") Long questionId);
     
@@ -44,5 +42,11 @@ public interface StudentAnswerMapper {
     
     // 统计学生某道题的总答题次数
     Integer countTotalByStudentAndQuestion(@Param("studentId") Long studentId, @Param("questionId") Long questionId);
+    
+    // 流式读取答题明细（导出用，需在事务内遍历）
+    Cursor<Map<String, Object>> cursorAnswerDetails(@Param("teacherId") Long teacherId,
+                                                    @Param("courseId") Long courseId,
+                                                    @Param("examId") Long examId,
+                                                    @Param("studentId") Long studentId);
 }
 
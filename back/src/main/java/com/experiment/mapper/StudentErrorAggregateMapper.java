@@ -0,0 +1,22 @@
+package com.experiment.mapper;
+
+import com.experiment.pojo.StudentAnswer;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.Map;
+
+@Mapper
+public interface StudentErrorAggregateMapper {
+    // 按本次提交的答题记录累加学生每道题的作答/答错次数
+    int upsertAnswers(@Param("studentId") Long studentId, @Param("answers") List<StudentAnswer> answers);
+    
+    // 查询学生的所有错题，按最近答错时间倒序
+    // 字段：question_id、question_content、question_type、knowledge_point、difficulty、correct_answer、
+    //      student_answer、last_error_time、error_count、total_attempts
+    List<Map<String, Object>> selectErrorQuestionsByStudentId(@Param("studentId") Long studentId);
+    
+    // 学生答题版本：最近作答时间 + 累计作答次数，有新答题记录时必然变化
+    String selectAnswerVersion(@Param("studentId") Long studentId);
+}
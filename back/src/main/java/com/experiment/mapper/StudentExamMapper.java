@@ -1,8 +1,10 @@
 package com.experiment.mapper;
 
 import com.experiment.pojo.StudentExam;
+import com.experiment.pojo.TeacherStatsSnapshot;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.util.List;
 import java.util.Map;
 
@@ -35,33 +37,24 @@ public interface StudentExamMapper {
     // 统计考试平均分
     Double selectAverageScoreByExam(@Param("examId") Long examId);
     
-    // 统计教师课程的平均分
-    Double selectAverageScoreByTeacher(@Param("teacherId") Long teacherId);
-    
     // 统计整体平均分
     Number selectOverallAverageScore();
     
-    // 统计教师的考试数量
-    Integer countExamsByTeacher(@Param("teacherId") Long teacherId);
-    
     // 获取成绩分布统计
     Map<String, Object> selectGradeDistribution();
     
-    // 获取班级整体统计
-    Map<String, Object> selectClassStats(@Param("teacherId") Long teacherId);
-    
-    // 统计及格率
-    Number selectPassRate(@Param("teacherId") Long teacherId);
-    
-    // 统计优秀率  
-    Number selectExcellentRate(@Param("teacherId") Long teacherId);
-    
-    // 统计参与率
-    Number selectParticipationRate(@Param("teacherId") Long teacherId);
-    
     // 获取教师课程的总学生数
     Integer countTotalStudentsByTeacher(@Param("teacherId") Long teacherId);
     
     // 获取教师课程的参与考试学生数
     Integer countParticipatedStudentsByTeacher(@Param("teacherId") Long teacherId);
+    
+    // 一次聚合查询生成教师统计快照
+    TeacherStatsSnapshot selectTeacherStatsSnapshot(@Param("teacherId") Long teacherId);
+    
+    // 流式读取考试成绩（导出用，需在事务内遍历）
+    Cursor<Map<String, Object>> cursorExamResults(@Param("teacherId") Long teacherId,
+                                                  @Param("courseId") Long courseId,
+                                                  @Param("examId") Long examId,
+                                                  @Param("studentId") Long studentId);
 } 
\ No newline at end of file
@@ -3,7 +3,10 @@ package com.experiment.mapper;
 import com.experiment.pojo.StudentPractice;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface StudentPracticeMapper {
@@ -16,6 +19,15 @@ public interface StudentPracticeMapper {
     // 根据学生ID查询练习记录
     List<StudentPractice> selectByStudentId(@Param("studentId") Long studentId);
     
+    // 查询学生全部已完成的练习（联表取练习标题，按创建时间倒序，包含完成时间为空的记录）
+    List<Map<String, Object>> selectAllCompletedHistory(@Param("studentId") Long studentId);
+    
+    // 按完成时间倒序分页查询学生已完成的练习（联表取练习标题，游标为上一页最后一条的完成时间和ID）
+    List<Map<String, Object>> selectCompletedHistory(@Param("studentId") Long studentId,
+                                                     @Param("cursorTime") LocalDateTime cursorTime,
+                                                     @Param("cursorId") Long cursorId,
+                                                     @Param("limit") int limit);
+    
     // 根据练习ID查询学生记录
     List<StudentPractice> selectByPracticeId(@Param("practiceId") Long practiceId);
     
@@ -33,4 +45,16 @@ public interface StudentPracticeMapper {
     
     // 统计练习平均分
     Double selectAverageScoreByPractice(@Param("practiceId") Long practiceId);
+    
+    // 按学生汇总开始、完成的练习数及完成练习的得分（学习统计冷启动用）
+    List<Map<String, Object>> selectActivitySeed();
+    
+    // 查询指定时间之后每个学生完成练习的日期（去重）
+    List<Map<String, Object>> selectActiveDaysSince(@Param("since") LocalDateTime since);
+    
+    // 流式读取练习成绩（导出用，需在事务内遍历）
+    Cursor<Map<String, Object>> cursorPracticeResults(@Param("teacherId") Long teacherId,
+                                                      @Param("courseId") Long courseId,
+                                                      @Param("practiceId") Long practiceId,
+                                                      @Param("studentId") Long studentId);
 } 
\ No newline at end of file
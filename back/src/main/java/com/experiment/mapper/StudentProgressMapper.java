@@ -33,7 +33,4 @@ public interface StudentProgressMapper {
     
     // 统计课程完成率
     Double selectCourseCompletionRate(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
-    
-    // 统计教师课程的总学习时长
-    Integer selectTotalStudyTimeByTeacher(@Param("teacherId") Long teacherId);
 } 
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.experiment.mapper;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -49,4 +51,7 @@ public interface UserMapper {
     
     // 根据学号或工号查询用户
     User findByUserId(@Param("userId") String userId);
+    
+    // 查询指定时间之后登录过的用户（学习统计冷启动用）
+    List<Map<String, Object>> selectLastLoginSince(@Param("since") LocalDateTime since);
 } 
\ No newline at end of file
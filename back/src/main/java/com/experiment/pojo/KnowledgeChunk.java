@@ -0,0 +1,46 @@
+package com.experiment.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 知识库段落（检索的最小单元）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnowledgeChunk {
+
+    /**
+     * 所在文件（相对知识库根目录）
+     */
+    private String source;
+
+    /**
+     * 所属分类（一级目录）
+     */
+    private String category;
+
+    /**
+     * 段落所在小节标题
+     */
+    private String title;
+
+    /**
+     * 段落内容
+     */
+    private String content;
+
+    /**
+     * 分词结果（标题+内容）
+     */
+    private List<String> tokens;
+
+    /**
+     * 向量（已归一化）
+     */
+    private float[] embedding;
+}
@@ -21,6 +21,7 @@ public class QuestionBank {
     private String source; // 来源：ai_generated, manual, imported
     private Integer useCount; // 使用次数
     private Double avgScore; // 平均得分率
+    private String minhash; // 题干+选项的MinHash签名（Base64），用于近似重复检测
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
 }
@@ -0,0 +1,52 @@
+package com.experiment.pojo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 统一检索文档（知识库段落、课堂总结、课程资源）
+ */
+@Data
+public class SearchDocument {
+
+    /**
+     * 文档来源类型：knowledge-知识库，class-summary-课堂总结，course-resource-课程资源
+     */
+    private String type;
+
+    /**
+     * 来源记录ID（知识库为文件相对路径）
+     */
+    private String refId;
+
+    /**
+     * 标题
+     */
+    private String title;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 主题（知识库为文件名，其余为课程名称）
+     */
+    private String topic;
+
+    /**
+     * 正文（用于生成摘要和高亮）
+     */
+    private String content;
+
+    /**
+     * 访问地址
+     */
+    private String url;
+
+    /**
+     * 分词结果
+     */
+    private List<String> tokens;
+}
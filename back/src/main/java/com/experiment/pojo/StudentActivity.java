@@ -0,0 +1,19 @@
+package com.experiment.pojo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 学生学习活动计数器（由练习事件增量维护）
+ */
+@Data
+public class StudentActivity {
+    private Long studentId;
+    private LocalDate lastActiveDate; // 最近一次学习的日期
+    private Integer streakDays; // 截至最近学习日的连续学习天数
+    private Long startedPractices; // 开始的练习数
+    private Long completedPractices; // 完成的练习数
+    private Long scoreSum; // 完成练习的得分之和
+    private Long totalScoreSum; // 完成练习的总分之和
+}
@@ -0,0 +1,25 @@
+package com.experiment.pojo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 教师统计快照（单次聚合查询的结果，仪表盘直接读取）
+ */
+@Data
+public class TeacherStatsSnapshot {
+    private Long teacherId;
+    private Integer courseCount; // 课程数量
+    private Integer studentCount; // 选课学生数
+    private Integer totalStudyMinutes; // 学生学习时长总和（分钟）
+    private Integer examCount; // 有考试记录的考试数
+    private Integer scoredCount; // 已出分的考试记录数
+    private Double averageScore; // 平均分
+    private Integer passCount; // 及格（>=60）记录数
+    private Integer excellentCount; // 优秀（>=90）记录数
+    private Integer activeStudents; // 有成绩的学生数
+    private Integer progressStudents; // 有学习记录的学生数
+    private Integer participatedStudents; // 其中参加过考试的学生数
+    private LocalDateTime refreshTime; // 快照生成时间
+}
@@ -0,0 +1,76 @@
+package com.experiment.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AI后台任务服务接口
+ * 统一管理需要逐项调用大模型的后台任务（如练习评测后的AI分析），提供有界队列、并发限制和全局限流
+ */
+public interface AIJobService {
+
+    /**
+     * 单项处理逻辑
+     */
+    @FunctionalInterface
+    interface ItemProcessor {
+        /**
+         * 处理一项，可直接修改item中的字段
+         * @param index 序号
+         * @param item 任务项
+         */
+        void process(int index, Map<String, Object> item) throws Exception;
+    }
+
+    /**
+     * 批量处理逻辑，一次处理若干项（如把多道题打包进一次大模型调用）
+     */
+    @FunctionalInterface
+    interface BatchProcessor {
+        /**
+         * 处理一批，可直接修改各item中的字段
+         * @param indices 本批各项的序号
+         * @param items 本批各项
+         */
+        void process(List<Integer> indices, List<Map<String, Object>> items) throws Exception;
+    }
+
+    /**
+     * 提交任务
+     * @param jobType 任务类型
+     * @param items 任务项（会被复制，调用方后续修改不影响任务）
+     * @param processor 单项处理逻辑
+     * @return 任务ID；队列已满被拒绝时返回null
+     */
+    String submit(String jobType, List<Map<String, Object>> items, ItemProcessor processor);
+
+    /**
+     * 提交批量任务，各项按batchSize分批
+     * @param jobType 任务类型
+     * @param items 任务项（会被复制，调用方后续修改不影响任务）
+     * @param batchSize 每批项数
+     * @param processor 批量处理逻辑
+     * @return 任务ID；队列已满被拒绝时返回null
+     */
+    String submitBatched(String jobType, List<Map<String, Object>> items, int batchSize, BatchProcessor processor);
+
+    /**
+     * 获取一次大模型调用的限流许可，必要时阻塞等待。
+     * 处理逻辑在每次实际调用大模型之前调用，不需要调用大模型的项（如答对的题）不占用许可
+     * 任务之外直接调用大模型的路径（如AI出题、题库补充）也通过它获取许可，所有调用共享同一份限流预算
+     */
+    void acquireCallPermit() throws InterruptedException;
+
+    /**
+     * 查询任务状态
+     * @param jobId 任务ID
+     * @return 任务状态及各项当前内容；任务不存在或已过期时返回null
+     */
+    Map<String, Object> getJob(String jobId);
+
+    /**
+     * 获取任务队列运行指标
+     * @return 指标
+     */
+    Map<String, Object> getMetrics();
+}
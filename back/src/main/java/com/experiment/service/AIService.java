@@ -3,6 +3,9 @@ package com.experiment.service;
 import com.experiment.pojo.ChatRequest;
 import com.experiment.pojo.ChatResponse;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 /**
  * AI服务接口
  */
@@ -22,6 +25,14 @@ public interface AIService {
      */
     String simpleChat(String message);
     
+    /**
+     * 简单文本对话
+     * @param message 用户消息
+     * @param bypassCache 是否绕过响应缓存（需要每次生成不同内容时使用）
+     * @return AI回复
+     */
+    String simpleChat(String message, boolean bypassCache);
+    
     /**
      * 带系统提示的对话
      * @param systemPrompt 系统提示
@@ -29,4 +40,30 @@ public interface AIService {
      * @return AI回复
      */
     String chatWithSystem(String systemPrompt, String userMessage);
-} 
\ No newline at end of file
+    
+    /**
+     * 带系统提示的对话
+     * @param systemPrompt 系统提示
+     * @param userMessage 用户消息
+     * @param bypassCache 是否绕过响应缓存（需要每次生成不同内容时使用）
+     * @return AI回复
+     */
+    String chatWithSystem(String systemPrompt, String userMessage, boolean bypassCache);
+    
+    /**
+     * 流式聊天（增量输出）
+     * @param request 聊天请求
+     * @param onToken 每收到一段增量文本时回调
+     * @return 完整回复，取消该Future会中断上游调用
+     */
+    CompletableFuture<String> streamChat(ChatRequest request, Consumer<String> onToken);
+    
+    /**
+     * 流式带系统提示的对话（增量输出）
+     * @param systemPrompt 系统提示
+     * @param userMessage 用户消息
+     * @param onToken 每收到一段增量文本时回调
+     * @return 完整回复，取消该Future会中断上游调用
+     */
+    CompletableFuture<String> streamChatWithSystem(String systemPrompt, String userMessage, Consumer<String> onToken);
+}
@@ -0,0 +1,31 @@
+package com.experiment.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * 数据导出服务接口
+ * 用游标逐行读取数据库并直接写入输出流，内存占用与导出行数无关
+ */
+public interface ExportService {
+
+    /**
+     * 校验导出参数，应在写出响应头之前调用
+     * @param dataset 数据集（exam-results、answers、practice-results）
+     * @param format 格式（csv、xlsx）
+     * @param filters 过滤条件，值为空的条件不参与校验
+     * @throws IllegalArgumentException 数据集或格式不支持，或给出了该数据集不支持的过滤条件
+     */
+    void validate(String dataset, String format, Map<String, Long> filters);
+
+    /**
+     * 导出
+     * @param dataset 数据集
+     * @param format 格式
+     * @param filters 过滤条件（teacherId、courseId、examId、practiceId、studentId，均可为空）
+     * @param out 输出流
+     * @return 导出行数（不含表头）
+     */
+    long export(String dataset, String format, Map<String, Long> filters, OutputStream out) throws IOException;
+}
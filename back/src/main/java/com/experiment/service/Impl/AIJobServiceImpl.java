@@ -0,0 +1,288 @@
+package com.experiment.service.Impl;
+
+import com.experiment.config.AIJobProperties;
+import com.experiment.service.AIJobService;
+import com.experiment.utils.TokenBucketRateLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI后台任务服务实现类
+ */
+@Slf4j
+@Service
+public class AIJobServiceImpl implements AIJobService {
+
+    private static final String JOB_QUEUED = "queued";
+    private static final String JOB_RUNNING = "running";
+    private static final String JOB_COMPLETED = "completed";
+
+    private static final String ITEM_PENDING = "pending";
+    private static final String ITEM_RUNNING = "running";
+    private static final String ITEM_COMPLETED = "completed";
+    private static final String ITEM_FAILED = "failed";
+
+    private final AIJobProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor itemExecutor;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final Map<String, AIJob> jobs = new ConcurrentHashMap<>();
+
+    private final LongAdder submittedJobs = new LongAdder();
+    private final LongAdder rejectedJobs = new LongAdder();
+    private final LongAdder completedJobs = new LongAdder();
+    private final LongAdder completedItems = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+    private final LongAdder rateLimitWaitMs = new LongAdder();
+
+    public AIJobServiceImpl(AIJobProperties properties) {
+        this.properties = properties;
+        this.rateLimiter = new TokenBucketRateLimiter(properties.getRateLimitPerSecond());
+        this.executor = new ThreadPoolExecutor(
+                properties.getConcurrency(), properties.getConcurrency(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                buildThreadFactory("ai-job-", properties.isVirtualThreads()),
+                new ThreadPoolExecutor.AbortPolicy());
+        // 任务项的排队数受 并发任务数×单任务并行度 约束，队列无需设上限
+        this.itemExecutor = new ThreadPoolExecutor(
+                properties.getMaxInFlightItems(), properties.getMaxInFlightItems(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                buildThreadFactory("ai-job-item-", properties.isVirtualThreads()));
+        log.info("AI任务队列已创建: 并发={}, 队列容量={}, 单任务并行度={}, 限流={}次/秒",
+                properties.getConcurrency(), properties.getQueueCapacity(),
+                properties.getItemParallelism(), properties.getRateLimitPerSecond());
+    }
+
+    private static ThreadFactory buildThreadFactory(String prefix, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(prefix, 0).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public String submit(String jobType, List<Map<String, Object>> items, ItemProcessor processor) {
+        return submitBatched(jobType, items, 1, (indices, batch) -> processor.process(indices.get(0), batch.get(0)));
+    }
+
+    @Override
+    public String submitBatched(String jobType, List<Map<String, Object>> items, int batchSize, BatchProcessor processor) {
+        purgeExpiredJobs();
+
+        AIJob job = new AIJob(UUID.randomUUID().toString(), jobType, items);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> runJob(job, Math.max(1, batchSize), processor));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            rejectedJobs.increment();
+            log.warn("AI任务队列已满，拒绝{}任务，当前排队: {}", jobType, executor.getQueue().size());
+            return null;
+        }
+        submittedJobs.increment();
+        log.info("提交{}任务: {}，共{}项，每批{}项", jobType, job.id, items.size(), batchSize);
+        return job.id;
+    }
+
+    /**
+     * 将任务的各批分发到任务项线程池并行处理，单个任务最多同时占用itemParallelism个并发，
+     * 每批完成后立即写回结果，整体耗时接近最慢的一批而不是各批之和
+     */
+    private void runJob(AIJob job, int batchSize, BatchProcessor processor) {
+        job.status = JOB_RUNNING;
+        job.startTime = System.currentTimeMillis();
+
+        int size = job.items.size();
+        int batchCount = (size + batchSize - 1) / batchSize;
+        Semaphore slots = new Semaphore(Math.max(1, properties.getItemParallelism()));
+        CountDownLatch finished = new CountDownLatch(batchCount);
+        try {
+            for (int start = 0; start < size; start += batchSize) {
+                slots.acquire();
+                List<Integer> indices = new ArrayList<>();
+                for (int i = start; i < Math.min(size, start + batchSize); i++) {
+                    indices.add(i);
+                }
+                itemExecutor.execute(() -> {
+                    try {
+                        processBatch(job, indices, processor);
+                    } finally {
+                        slots.release();
+                        finished.countDown();
+                    }
+                });
+            }
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{}任务{}被中断", job.type, job.id);
+        }
+
+        for (int i = 0; i < job.itemStatus.length(); i++) {
+            if (ITEM_PENDING.equals(job.itemStatus.get(i))) {
+                job.itemStatus.set(i, ITEM_FAILED);
+            }
+        }
+        job.status = JOB_COMPLETED;
+        job.finishTime = System.currentTimeMillis();
+        completedJobs.increment();
+        log.info("{}任务{}完成，耗时{}ms", job.type, job.id, job.finishTime - job.startTime);
+    }
+
+    private void processBatch(AIJob job, List<Integer> indices, BatchProcessor processor) {
+        List<Map<String, Object>> batch = new ArrayList<>(indices.size());
+        for (Integer index : indices) {
+            job.itemStatus.set(index, ITEM_RUNNING);
+            batch.add(job.items.get(index));
+        }
+        String result;
+        try {
+            processor.process(indices, batch);
+            result = ITEM_COMPLETED;
+            completedItems.add(indices.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = ITEM_FAILED;
+            failedItems.add(indices.size());
+        } catch (Exception e) {
+            result = ITEM_FAILED;
+            failedItems.add(indices.size());
+            log.warn("{}任务{}第{}项起的一批处理失败: {}", job.type, job.id, indices.get(0) + 1, e.getMessage());
+        }
+        for (Integer index : indices) {
+            job.itemStatus.set(index, result);
+        }
+    }
+
+    @Override
+    public void acquireCallPermit() throws InterruptedException {
+        rateLimitWaitMs.add(TimeUnit.NANOSECONDS.toMillis(rateLimiter.acquire()));
+    }
+
+    @Override
+    public Map<String, Object> getJob(String jobId) {
+        AIJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<String> itemStatus = new ArrayList<>();
+        int doneCount = 0;
+        for (int i = 0; i < job.items.size(); i++) {
+            Map<String, Object> item = job.items.get(i);
+            synchronized (item) {
+                items.add(new HashMap<>(item));
+            }
+            String status = job.itemStatus.get(i);
+            itemStatus.add(status);
+            if (ITEM_COMPLETED.equals(status) || ITEM_FAILED.equals(status)) {
+                doneCount++;
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("jobId", job.id);
+        result.put("jobType", job.type);
+        result.put("status", job.status);
+        result.put("items", items);
+        result.put("itemStatus", itemStatus);
+        result.put("finishedCount", doneCount);
+        result.put("totalCount", itemStatus.size());
+        result.put("submitTime", job.submitTime);
+        result.put("startTime", job.startTime);
+        result.put("finishTime", job.finishTime);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("concurrency", properties.getConcurrency());
+        metrics.put("activeWorkers", executor.getActiveCount());
+        metrics.put("itemParallelism", properties.getItemParallelism());
+        metrics.put("inFlightItems", itemExecutor.getActiveCount());
+        metrics.put("queuedItems", itemExecutor.getQueue().size());
+        metrics.put("queuedJobs", executor.getQueue().size());
+        metrics.put("queueCapacity", properties.getQueueCapacity());
+        metrics.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        metrics.put("submittedJobs", submittedJobs.sum());
+        metrics.put("rejectedJobs", rejectedJobs.sum());
+        metrics.put("completedJobs", completedJobs.sum());
+        metrics.put("completedItems", completedItems.sum());
+        metrics.put("failedItems", failedItems.sum());
+        metrics.put("rateLimitPerSecond", properties.getRateLimitPerSecond());
+        metrics.put("rateLimitWaitMs", rateLimitWaitMs.sum());
+        metrics.put("trackedJobs", jobs.size());
+        return metrics;
+    }
+
+    /**
+     * 清理超过保留时间的已结束任务
+     */
+    private void purgeExpiredJobs() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(properties.getRetentionMinutes());
+        jobs.values().removeIf(job -> JOB_COMPLETED.equals(job.status) && job.finishTime < expireBefore);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        itemExecutor.shutdownNow();
+    }
+
+    /**
+     * 后台任务
+     */
+    private static class AIJob {
+        private final String id;
+        private final String type;
+        private final List<Map<String, Object>> items;
+        private final AtomicReferenceArray<String> itemStatus;
+        private final long submitTime = System.currentTimeMillis();
+        private volatile String status = JOB_QUEUED;
+        private volatile long startTime;
+        private volatile long finishTime;
+
+        AIJob(String id, String type, List<Map<String, Object>> sourceItems) {
+            this.id = id;
+            this.type = type;
+            List<Map<String, Object>> copies = new ArrayList<>(sourceItems.size());
+            for (Map<String, Object> item : sourceItems) {
+                copies.add(Collections.synchronizedMap(new HashMap<>(item)));
+            }
+            this.items = Collections.unmodifiableList(copies);
+            this.itemStatus = new AtomicReferenceArray<>(sourceItems.size());
+            for (int i = 0; i < sourceItems.size(); i++) {
+                itemStatus.set(i, ITEM_PENDING);
+            }
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.experiment.service.Impl;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -19,8 +24,19 @@ import com.experiment.pojo.ChatMessage;
 import com.experiment.pojo.ChatRequest;
 import com.experiment.pojo.ChatResponse;
 import com.experiment.service.AIService;
+import com.experiment.utils.LlmResponseCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSource;
 
 /**
  * AI服务实现类
@@ -29,9 +45,31 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class AIServiceImpl implements AIService {
     
+    private static final String TEXT_GENERATION_URL = "https://dashscope.aliyuncs.com/api/v1/services/aigc/text-generation/generation";
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.get("application/json; charset=utf-8");
+    
+    /**
+     * 这些前缀表示调用失败或模拟响应，不应缓存
+     */
+    private static final String[] UNCACHEABLE_PREFIXES = {
+            "API密钥未配置", "应用ID未配置", "AI服务调用", "这是一个模拟的AI响应"
+    };
+    
     @Autowired
     private DashScopeConfig dashScopeConfig;
     
+    /**
+     * 共享的大模型HTTP客户端（带连接池）
+     */
+    @Autowired
+    private OkHttpClient llmHttpClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+    
     @Override
     public ChatResponse chat(ChatRequest request) {
         try {
@@ -118,8 +156,24 @@ public class AIServiceImpl implements AIService {
     
     @Override
     public String simpleChat(String message) {
+        return simpleChat(message, false);
+    }
+    
+    @Override
+    public String simpleChat(String message, boolean bypassCache) {
+        String model = dashScopeConfig.getModel();
+        String cacheKey = null;
+        if (useCache(bypassCache)) {
+            cacheKey = llmResponseCache.buildKey(model, "", message);
+            String cached = llmResponseCache.get(cacheKey);
+            if (cached != null) {
+                log.info("简单对话命中响应缓存");
+                return cached;
+            }
+        }
+        
         ChatRequest request = new ChatRequest();
-        request.setModel(dashScopeConfig.getModel());
+        request.setModel(model);
         
         List<ChatMessage> messages = new ArrayList<>();
         messages.add(new ChatMessage("user", message));
@@ -129,7 +183,11 @@ public class AIServiceImpl implements AIService {
         
         if (response.getStatusCode() == 200 && response.getOutput() != null && 
             response.getOutput().getChoices() != null && response.getOutput().getChoices().length > 0) {
-            return response.getOutput().getChoices()[0].getMessage().getContent();
+            String content = response.getOutput().getChoices()[0].getMessage().getContent();
+            if (cacheKey != null && isCacheableResponse(content)) {
+                llmResponseCache.put(cacheKey, content);
+            }
+            return content;
         } else {
             return "抱歉，AI服务暂时不可用：" + response.getMessage();
         }
@@ -137,7 +195,57 @@ public class AIServiceImpl implements AIService {
     
     @Override
     public String chatWithSystem(String systemPrompt, String userMessage) {
-        return chatWithSystemWithRetry(systemPrompt, userMessage, 2); // 减少重试次数从3次改为2次，加快响应
+        return chatWithSystem(systemPrompt, userMessage, false);
+    }
+    
+    @Override
+    public String chatWithSystem(String systemPrompt, String userMessage, boolean bypassCache) {
+        if (!useCache(bypassCache)) {
+            return chatWithSystemWithRetry(systemPrompt, userMessage, 2);
+        }
+        
+        // 百炼应用API由appId决定模型，以appId参与缓存键
+        String cacheKey = llmResponseCache.buildKey("app:" + dashScopeConfig.getAppId(), systemPrompt, userMessage);
+        String cached = llmResponseCache.get(cacheKey);
+        if (cached != null) {
+            log.info("带系统提示的对话命中响应缓存");
+            return cached;
+        }
+        
+        String content = chatWithSystemWithRetry(systemPrompt, userMessage, 2); // 减少重试次数从3次改为2次，加快响应
+        if (isCacheableResponse(content)) {
+            llmResponseCache.put(cacheKey, content);
+        }
+        return content;
+    }
+    
+    /**
+     * 判断本次调用是否走缓存
+     */
+    private boolean useCache(boolean bypassCache) {
+        if (!llmResponseCache.isEnabled()) {
+            return false;
+        }
+        if (bypassCache) {
+            llmResponseCache.recordBypass();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 失败提示和模拟响应不写入缓存
+     */
+    private boolean isCacheableResponse(String content) {
+        if (content == null || content.trim().isEmpty()) {
+            return false;
+        }
+        for (String prefix : UNCACHEABLE_PREFIXES) {
+            if (content.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -160,31 +268,32 @@ public class AIServiceImpl implements AIService {
                 }
 
                 String url = "https://dashscope.aliyuncs.com/api/v1/apps/" + appId + "/completion";
-                org.springframework.http.client.SimpleClientHttpRequestFactory factory = new org.springframework.http.client.SimpleClientHttpRequestFactory();
-                factory.setConnectTimeout(15000); // 连接超时：15秒
-                factory.setReadTimeout(120000); // 读取超时：120秒（2分钟），加快生成速度
-                org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate(factory);
 
-                java.util.Map<String, Object> input = new java.util.HashMap<>();
+                Map<String, Object> input = new HashMap<>();
                 input.put("prompt", systemPrompt + "\n\n" + userMessage);
                 
-                java.util.Map<String, Object> body = new java.util.HashMap<>();
+                Map<String, Object> body = new HashMap<>();
                 body.put("input", input);
-                body.put("parameters", new java.util.HashMap<>());
-
-                org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-                headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-                headers.set("Authorization", "Bearer " + apiKey);
+                body.put("parameters", new HashMap<>());
 
-                org.springframework.http.HttpEntity<java.util.Map<String, Object>> entity = new org.springframework.http.HttpEntity<>(body, headers);
+                Request request = new Request.Builder()
+                        .url(url)
+                        .header("Authorization", "Bearer " + apiKey)
+                        .post(RequestBody.create(objectMapper.writeValueAsString(body), JSON_MEDIA_TYPE))
+                        .build();
                 
                 log.info("准备调用百炼应用API (第{}次尝试): {}", attempt, url);
-                org.springframework.http.ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
-                log.info("百炼应用API响应状态: {}", response.getStatusCode());
+                String responseBody;
+                try (Response response = llmHttpClient.newCall(request).execute()) {
+                    log.info("百炼应用API响应状态: {}", response.code());
+                    responseBody = response.body() != null ? response.body().string() : "";
+                    if (!response.isSuccessful()) {
+                        throw new IOException("HTTP " + response.code() + ": " + responseBody);
+                    }
+                }
 
                 // 解析返回的JSON
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                com.fasterxml.jackson.databind.JsonNode root = mapper.readTree(response.getBody());
+                JsonNode root = objectMapper.readTree(responseBody);
                 String content = root.path("output").path("text").asText();
                 
                 // 去除markdown代码块包裹
@@ -218,6 +327,144 @@ public class AIServiceImpl implements AIService {
         return "AI服务调用失败，已达到最大重试次数";
     }
     
+    @Override
+    public CompletableFuture<String> streamChat(ChatRequest request, Consumer<String> onToken) {
+        String apiKey = dashScopeConfig.getApiKey();
+        if (apiKey == null || apiKey.isEmpty() || "your-api-key-here".equals(apiKey)) {
+            log.warn("API密钥未配置或无效，使用模拟AI响应");
+            String mock = generateMockResponse(request).getOutput().getChoices()[0].getMessage().getContent();
+            onToken.accept(mock);
+            return CompletableFuture.completedFuture(mock);
+        }
+        
+        List<Map<String, String>> messages = new ArrayList<>();
+        for (ChatMessage chatMessage : request.getMessages()) {
+            messages.add(Map.of("role", chatMessage.getRole().toLowerCase(), "content", chatMessage.getContent()));
+        }
+        
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("result_format", "message");
+        parameters.put("incremental_output", true);
+        parameters.put("temperature", request.getTemperature());
+        parameters.put("top_p", request.getTopP());
+        parameters.put("max_tokens", request.getMaxTokens());
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", request.getModel() != null ? request.getModel() : dashScopeConfig.getModel());
+        body.put("input", Map.of("messages", messages));
+        body.put("parameters", parameters);
+        
+        return streamSse(TEXT_GENERATION_URL, apiKey, body, onToken);
+    }
+    
+    @Override
+    public CompletableFuture<String> streamChatWithSystem(String systemPrompt, String userMessage, Consumer<String> onToken) {
+        String apiKey = dashScopeConfig.getApiKey();
+        String appId = dashScopeConfig.getAppId();
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.warn("API密钥未配置");
+            String message = "API密钥未配置，无法调用AI服务。";
+            onToken.accept(message);
+            return CompletableFuture.completedFuture(message);
+        }
+        if (appId == null || appId.isEmpty()) {
+            log.warn("应用ID未配置");
+            String message = "应用ID未配置，无法调用百炼应用。";
+            onToken.accept(message);
+            return CompletableFuture.completedFuture(message);
+        }
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("input", Map.of("prompt", systemPrompt + "\n\n" + userMessage));
+        body.put("parameters", Map.of("incremental_output", true));
+        
+        return streamSse("https://dashscope.aliyuncs.com/api/v1/apps/" + appId + "/completion", apiKey, body, onToken);
+    }
+    
+    /**
+     * 以SSE方式调用DashScope增量输出接口
+     * 读取在OkHttp调度线程上进行，不占用调用方线程
+     */
+    private CompletableFuture<String> streamSse(String url, String apiKey, Map<String, Object> body, Consumer<String> onToken) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(url)
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("X-DashScope-SSE", "enable")
+                    .header("Accept", "text/event-stream")
+                    .post(RequestBody.create(objectMapper.writeValueAsString(body), JSON_MEDIA_TYPE))
+                    .build();
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        
+        log.info("准备调用DashScope流式接口: {}", url);
+        Call call = llmHttpClient.newCall(request);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                log.error("DashScope流式接口调用异常: {}", e.getMessage());
+                future.completeExceptionally(e);
+            }
+            
+            @Override
+            public void onResponse(Call c, Response response) {
+                StringBuilder fullText = new StringBuilder();
+                try (response) {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        String error = response.body() != null ? response.body().string() : "";
+                        throw new IOException("HTTP " + response.code() + ": " + error);
+                    }
+                    BufferedSource source = response.body().source();
+                    String line;
+                    while (!future.isDone() && (line = source.readUtf8Line()) != null) {
+                        if (!line.startsWith("data:")) {
+                            continue;
+                        }
+                        JsonNode data = objectMapper.readTree(line.substring(5).trim());
+                        String token = extractStreamText(data);
+                        if (token != null && !token.isEmpty()) {
+                            fullText.append(token);
+                            onToken.accept(token);
+                        }
+                    }
+                    log.info("DashScope流式接口调用完成，共{}字符", fullText.length());
+                    future.complete(fullText.toString());
+                } catch (Exception e) {
+                    if (!future.isDone()) {
+                        log.error("DashScope流式响应处理异常: {}", e.getMessage());
+                        future.completeExceptionally(e);
+                    }
+                }
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * 提取增量文本：应用接口在output.text，文本生成接口在output.choices[0].message.content
+     */
+    private String extractStreamText(JsonNode data) {
+        JsonNode output = data.path("output");
+        if (output.hasNonNull("text")) {
+            return output.get("text").asText();
+        }
+        JsonNode choices = output.path("choices");
+        if (choices.isArray() && choices.size() > 0) {
+            return choices.get(0).path("message").path("content").asText(null);
+        }
+        return null;
+    }
+    
     /**
      * 生成模拟AI响应
      */
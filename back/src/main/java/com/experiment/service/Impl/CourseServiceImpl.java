@@ -2,6 +2,7 @@ package com.experiment.service.Impl;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,15 +14,14 @@ import lombok.extern.slf4j.Slf4j;
 
 import com.experiment.mapper.ChapterMapper;
 import com.experiment.mapper.CourseMapper;
-import com.experiment.mapper.LessonMapper;
 import com.experiment.pojo.Chapter;
 import com.experiment.pojo.Course;
 import com.experiment.pojo.CourseDesignDTO;
 import com.experiment.pojo.CourseQueryDTO;
-import com.experiment.pojo.Lesson;
 import com.experiment.result.PageResult;
 import com.experiment.result.Result;
 import com.experiment.service.CourseService;
+import com.experiment.utils.CourseTreeCache;
 
 @Slf4j
 @Service
@@ -34,7 +34,7 @@ public class CourseServiceImpl implements CourseService {
     private ChapterMapper chapterMapper;
     
     @Autowired
-    private LessonMapper lessonMapper;
+    private CourseTreeCache courseTreeCache;
 
     @Override
     public PageResult<Course> getCourseList(CourseQueryDTO queryDTO) {
@@ -68,12 +68,12 @@ public class CourseServiceImpl implements CourseService {
             return Result.error("课程不存在");
         }
 
-        // 查询课程章节
-        List<Chapter> chapters = chapterMapper.findByCourseId(id);
-        for (Chapter chapter : chapters) {
-            // 查询章节课时
-            List<Lesson> lessons = lessonMapper.findByChapterId(chapter.getId());
-            chapter.setLessons(lessons);
+        // 查询课程章节树（章节+课时一次联表查询，结果按课程缓存）
+        List<Chapter> chapters = courseTreeCache.get(id);
+        if (chapters == null) {
+            long generation = courseTreeCache.generation();
+            chapters = Collections.unmodifiableList(chapterMapper.findTreeByCourseId(id));
+            courseTreeCache.put(id, chapters, generation);
         }
         course.setChapters(chapters);
 
@@ -1,14 +1,16 @@
 package com.experiment.service.Impl;
 
 import com.experiment.mapper.StudentExamMapper;
-import com.experiment.mapper.QuestionMapper;
 import com.experiment.mapper.StudentAnswerMapper;
+import com.experiment.mapper.StudentErrorAggregateMapper;
 import com.experiment.pojo.ErrorQuestionAnalysisDTO;
 import com.experiment.pojo.ErrorQuestionTrainingDTO;
 import com.experiment.pojo.StudentExam;
 import com.experiment.pojo.Question;
 import com.experiment.service.ErrorQuestionAnalysisService;
 import com.experiment.service.AIService;
+import com.experiment.utils.ErrorAnalysisCache;
+import com.experiment.utils.QuestionCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -28,11 +30,17 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
     private StudentExamMapper studentExamMapper;
     
     @Autowired
-    private QuestionMapper questionMapper;
+    private QuestionCache questionCache;
     
     @Autowired
     private StudentAnswerMapper studentAnswerMapper;
     
+    @Autowired
+    private StudentErrorAggregateMapper studentErrorAggregateMapper;
+    
+    @Autowired
+    private ErrorAnalysisCache errorAnalysisCache;
+    
     @Autowired
     private AIService aiService;
     
@@ -40,13 +48,20 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
 
     @Override
     public List<ErrorQuestionAnalysisDTO> analyzeStudentErrorQuestions(Long studentId) {
+        // 答题版本只读聚合表主键范围，版本未变时直接复用上次的分析结果
+        String version = studentErrorAggregateMapper.selectAnswerVersion(studentId);
+        return errorAnalysisCache.getOrLoad(studentId, version != null ? version : "0",
+            () -> loadErrorQuestionAnalysis(studentId));
+    }
+
+    private List<ErrorQuestionAnalysisDTO> loadErrorQuestionAnalysis(Long studentId) {
         log.info("开始分析学生 {} 的历史错题", studentId);
         
         List<ErrorQuestionAnalysisDTO> errorAnalysisList = new ArrayList<>();
         
         try {
-            // 从数据库查询学生的所有错题
-            List<Map<String, Object>> errorQuestions = studentAnswerMapper.selectErrorQuestionsByStudentId(studentId);
+            // 从错题聚合表查询学生的所有错题（每题一行，作答/答错次数已预先累加）
+            List<Map<String, Object>> errorQuestions = studentErrorAggregateMapper.selectErrorQuestionsByStudentId(studentId);
             
             log.info("学生 {} 共有 {} 道错题记录", studentId, errorQuestions.size());
             
@@ -93,7 +108,9 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
             
             log.info("学生 {} 的错题分析完成，共分析 {} 道错题", studentId, errorAnalysisList.size());
         } catch (Exception e) {
+            // 不返回部分结果：异常向上抛出，缓存不会记录这次失败的分析
             log.error("分析学生错题失败", e);
+            throw new RuntimeException("分析学生错题失败: " + e.getMessage(), e);
         }
         
         return errorAnalysisList;
@@ -105,7 +122,7 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
         
         try {
             // 查询题目信息
-            Question question = questionMapper.selectById(questionId);
+            Question question = questionCache.get(questionId);
             if (question == null) {
                 log.warn("题目 {} 不存在", questionId);
                 return null;
@@ -178,7 +195,8 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
             String prompt = buildSimilarQuestionPrompt(originalError, questionCount);
             String aiResponse = aiService.chatWithSystem(
                 "你是一个专业的教育题目生成专家，擅长根据学生的错题情况生成相似的练习题目。",
-                prompt
+                prompt,
+                true
             );
             
             List<Map<String, Object>> questions = parseQuestionsFromAI(aiResponse);
@@ -222,7 +240,8 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
             String prompt = buildKnowledgePointPrompt(knowledgePoint, relatedErrors, questionCount);
             String aiResponse = aiService.chatWithSystem(
                 "你是一个专业的教育题目生成专家，擅长根据特定知识点生成有针对性的练习题目。",
-                prompt
+                prompt,
+                true
             );
             
             List<Map<String, Object>> questions = parseQuestionsFromAI(aiResponse);
@@ -276,7 +295,8 @@ public class ErrorQuestionAnalysisServiceImpl implements ErrorQuestionAnalysisSe
             String prompt = buildComprehensivePrompt(allErrors, priorityKnowledgePoints, questionCount);
             String aiResponse = aiService.chatWithSystem(
                 "你是一个专业的教育题目生成专家，擅长根据学生的整体错题情况生成综合性的练习题目。",
-                prompt
+                prompt,
+                true
             );
             
             List<Map<String, Object>> questions = parseQuestionsFromAI(aiResponse);
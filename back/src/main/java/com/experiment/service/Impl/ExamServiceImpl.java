@@ -1,13 +1,25 @@
 package com.experiment.service.Impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.experiment.config.QuestionGenerationProperties;
 import com.experiment.mapper.ExamMapper;
 import com.experiment.mapper.QuestionMapper;
 import com.experiment.mapper.QuestionOptionMapper;
@@ -20,6 +32,7 @@ import com.experiment.pojo.StudentExam;
 import com.experiment.pojo.User;
 import com.experiment.result.PageResult;
 import com.experiment.service.ExamService;
+import com.experiment.utils.ExamPaperCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,9 +55,18 @@ public class ExamServiceImpl implements ExamService {
     @Autowired
     private UserMapper userMapper;
     
+    @Autowired
+    private ExamPaperCache examPaperCache;
+    
     @Autowired(required = false)
     private com.experiment.service.QuestionGenerationService questionGenerationService;
     
+    @Autowired
+    private QuestionGenerationProperties questionGenerationProperties;
+    
+    @Autowired
+    private ExecutorService questionGenerationExecutor;
+    
     @Override
     @Transactional
     public Exam createExam(Exam exam) {
@@ -77,14 +99,30 @@ public class ExamServiceImpl implements ExamService {
     
     @Override
     public Exam getExamById(Long id) {
+        // 已发布的考试直接读内存中的试卷快照
+        return examPaperCache.getOrLoad(id, this::loadExamPaper);
+    }
+    
+    /**
+     * 从数据库组装试卷：考试、题目、选项各查询一次
+     */
+    private Exam loadExamPaper(Long id) {
         Exam exam = examMapper.selectById(id);
         if (exam != null) {
             List<Question> questions = questionMapper.selectByExamId(id);
-            // 为每个题目加载选项
-            for (Question question : questions) {
-                if ("choice".equals(question.getType()) || "multiple".equals(question.getType())) {
-                    List<QuestionOption> options = questionOptionMapper.selectByQuestionId(question.getId());
-                    question.setOptions(options);
+            // 一次查询所有选择题的选项，再按题目分组
+            List<Long> choiceQuestionIds = questions.stream()
+                .filter(this::isChoiceQuestion)
+                .map(Question::getId)
+                .collect(Collectors.toList());
+            if (!choiceQuestionIds.isEmpty()) {
+                Map<Long, List<QuestionOption>> optionsByQuestion = questionOptionMapper.selectByQuestionIds(choiceQuestionIds)
+                    .stream()
+                    .collect(Collectors.groupingBy(QuestionOption::getQuestionId));
+                for (Question question : questions) {
+                    if (isChoiceQuestion(question)) {
+                        question.setOptions(optionsByQuestion.getOrDefault(question.getId(), new ArrayList<>()));
+                    }
                 }
             }
             exam.setQuestions(questions);
@@ -92,6 +130,10 @@ public class ExamServiceImpl implements ExamService {
         return exam;
     }
     
+    private boolean isChoiceQuestion(Question question) {
+        return "choice".equals(question.getType()) || "multiple".equals(question.getType());
+    }
+    
     @Override
     public List<Exam> getExamsByTeacherId(Long teacherId) {
         return examMapper.selectByTeacherId(teacherId);
@@ -239,31 +281,43 @@ public class ExamServiceImpl implements ExamService {
             String subject = "计算机科学";
             String knowledgePoint = getKnowledgePointByExamType(examType);
             
-            // 生成不同类型的题目
-            List<Question> allQuestions = new java.util.ArrayList<>();
-            
-            // 单选题 (50%)
+            // 题型配置：单选题50%、多选题30%、简答题20%
             int singleChoiceCount = (int) (count * 0.5);
-            if (singleChoiceCount > 0) {
-                List<Question> singleChoiceQuestions = questionGenerationService.generateQuestions(
-                    subject, knowledgePoint, "single_choice", "medium", singleChoiceCount);
-                allQuestions.addAll(singleChoiceQuestions);
-            }
-            
-            // 多选题 (30%)
             int multipleChoiceCount = (int) (count * 0.3);
-            if (multipleChoiceCount > 0) {
-                List<Question> multipleChoiceQuestions = questionGenerationService.generateQuestions(
-                    subject, knowledgePoint, "multiple_choice", "medium", multipleChoiceCount);
-                allQuestions.addAll(multipleChoiceQuestions);
-            }
+            Map<String, Integer> typeCounts = new LinkedHashMap<>();
+            typeCounts.put("single_choice", singleChoiceCount);
+            typeCounts.put("multiple_choice", multipleChoiceCount);
+            typeCounts.put("short_answer", count - singleChoiceCount - multipleChoiceCount);
             
-            // 简答题 (20%)
-            int shortAnswerCount = count - singleChoiceCount - multipleChoiceCount;
-            if (shortAnswerCount > 0) {
-                List<Question> shortAnswerQuestions = questionGenerationService.generateQuestions(
-                    subject, knowledgePoint, "short_answer", "medium", shortAnswerCount);
-                allQuestions.addAll(shortAnswerQuestions);
+            // 各题型同时生成（各自读取知识库并等待大模型），共用一个截止时间
+            Map<String, Future<List<Question>>> futures = new LinkedHashMap<>();
+            typeCounts.forEach((type, typeCount) -> {
+                if (typeCount > 0) {
+                    futures.put(type, submitGeneration(subject, knowledgePoint, type, typeCount));
+                }
+            });
+            
+            // 先等齐（或取消）所有题型，再统一从题库补齐，补题时不再有超时的生成占用出题线程
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(questionGenerationProperties.getTimeoutSeconds());
+            Map<String, List<Question>> generated = new LinkedHashMap<>();
+            futures.forEach((type, future) -> generated.put(type, awaitQuestions(future, type, deadline)));
+            
+            List<Question> allQuestions = new ArrayList<>();
+            for (Map.Entry<String, List<Question>> entry : generated.entrySet()) {
+                String type = entry.getKey();
+                int typeCount = typeCounts.get(type);
+                List<Question> typeQuestions = new ArrayList<>(entry.getValue());
+                if (typeQuestions.size() > typeCount) {
+                    typeQuestions = new ArrayList<>(typeQuestions.subList(0, typeCount));
+                }
+                // 超时、失败或数量不足的题型从题库补齐
+                if (typeQuestions.size() < typeCount) {
+                    List<Question> bankQuestions = questionGenerationService.getQuestionsFromBank(
+                        subject, knowledgePoint, type, "medium", typeCount - typeQuestions.size());
+                    log.info("{}题型生成{}道，从题库补充{}道", type, typeQuestions.size(), bankQuestions.size());
+                    typeQuestions.addAll(bankQuestions);
+                }
+                allQuestions.addAll(typeQuestions);
             }
             
             // 如果AI生成失败，使用备用方案
@@ -292,6 +346,38 @@ public class ExamServiceImpl implements ExamService {
         }
     }
     
+    /**
+     * 把某一题型的生成提交到出题线程池，线程池队列已满时该题型直接按失败处理（由题库补齐）
+     */
+    private Future<List<Question>> submitGeneration(String subject, String knowledgePoint, String type, int count) {
+        try {
+            return questionGenerationExecutor.submit(() -> questionGenerationService.generateQuestions(
+                subject, knowledgePoint, type, "medium", count));
+        } catch (RejectedExecutionException e) {
+            log.warn("AI出题线程池已满，{}题型改为从题库选题", type);
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+    }
+    
+    /**
+     * 在截止时间前等待某一题型的生成结果，超时或失败时返回空列表；超时的生成会被取消
+     */
+    private List<Question> awaitQuestions(Future<List<Question>> future, String type, long deadline) {
+        try {
+            List<Question> questions = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return questions != null ? questions : new ArrayList<>();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{}题型生成超时，已取消", type);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("{}题型生成失败: {}", type, e.getCause().getMessage());
+        }
+        return new ArrayList<>();
+    }
+    
     /**
      * 根据考试类型获取知识点
      */
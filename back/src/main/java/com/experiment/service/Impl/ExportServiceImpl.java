@@ -0,0 +1,156 @@
+package com.experiment.service.Impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.experiment.constant.ExportConstants;
+import com.experiment.mapper.StudentAnswerMapper;
+import com.experiment.mapper.StudentExamMapper;
+import com.experiment.mapper.StudentPracticeMapper;
+import com.experiment.service.ExportService;
+import com.experiment.utils.CsvTableWriter;
+import com.experiment.utils.TableWriter;
+import com.experiment.utils.XlsxTableWriter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 数据导出服务实现
+ */
+@Slf4j
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 各数据集的列定义（结果字段 -> 表头），顺序即导出列顺序
+     */
+    private static final Map<String, String[][]> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put(ExportConstants.DATASET_EXAM_RESULTS, new String[][] {
+            {"studentNo", "学号"}, {"studentName", "姓名"}, {"examId", "考试ID"}, {"examName", "考试名称"},
+            {"score", "得分"}, {"totalScore", "总分"}, {"status", "状态"}, {"submitTime", "提交时间"}
+        });
+        COLUMNS.put(ExportConstants.DATASET_ANSWERS, new String[][] {
+            {"studentNo", "学号"}, {"studentName", "姓名"}, {"examId", "考试ID"}, {"examName", "考试名称"},
+            {"questionId", "题目ID"}, {"questionContent", "题目"}, {"answer", "学生答案"},
+            {"isCorrect", "是否正确"}, {"score", "得分"}, {"answerTime", "作答时间"}
+        });
+        COLUMNS.put(ExportConstants.DATASET_PRACTICE_RESULTS, new String[][] {
+            {"studentNo", "学号"}, {"studentName", "姓名"}, {"practiceId", "练习ID"}, {"practiceTitle", "练习名称"},
+            {"score", "得分"}, {"totalScore", "总分"}, {"accuracy", "正确率(%)"}, {"status", "状态"},
+            {"startTime", "开始时间"}, {"completeTime", "完成时间"}, {"duration", "用时(分钟)"}
+        });
+    }
+
+    /**
+     * 各数据集支持的过滤条件；考试类数据没有练习维度，练习成绩没有考试维度
+     */
+    private static final Map<String, Set<String>> FILTERS = Map.of(
+        ExportConstants.DATASET_EXAM_RESULTS, Set.of("teacherId", "courseId", "examId", "studentId"),
+        ExportConstants.DATASET_ANSWERS, Set.of("teacherId", "courseId", "examId", "studentId"),
+        ExportConstants.DATASET_PRACTICE_RESULTS, Set.of("teacherId", "courseId", "practiceId", "studentId")
+    );
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private StudentAnswerMapper studentAnswerMapper;
+
+    @Autowired
+    private StudentPracticeMapper studentPracticeMapper;
+
+    @Override
+    public void validate(String dataset, String format, Map<String, Long> filters) {
+        if (!COLUMNS.containsKey(dataset)) {
+            throw new IllegalArgumentException(ExportConstants.ERROR_UNKNOWN_DATASET + dataset);
+        }
+        if (!ExportConstants.FORMAT_CSV.equals(format) && !ExportConstants.FORMAT_XLSX.equals(format)) {
+            throw new IllegalArgumentException(ExportConstants.ERROR_UNKNOWN_FORMAT + format);
+        }
+        // 不支持的条件若被静默忽略，会导出超出预期范围的数据
+        for (Map.Entry<String, Long> filter : filters.entrySet()) {
+            if (filter.getValue() != null && !FILTERS.get(dataset).contains(filter.getKey())) {
+                throw new IllegalArgumentException(ExportConstants.ERROR_UNSUPPORTED_FILTER + filter.getKey());
+            }
+        }
+    }
+
+    /**
+     * 游标只在SqlSession打开期间可遍历，因此整个导出过程放在只读事务内
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long export(String dataset, String format, Map<String, Long> filters, OutputStream out) throws IOException {
+        validate(dataset, format, filters);
+        String[][] columns = COLUMNS.get(dataset);
+        long start = System.currentTimeMillis();
+
+        TableWriter writer = ExportConstants.FORMAT_XLSX.equals(format)
+            ? new XlsxTableWriter(out, dataset)
+            : new CsvTableWriter(out);
+
+        List<String> header = new ArrayList<>(columns.length);
+        for (String[] column : columns) {
+            header.add(column[1]);
+        }
+        writer.writeRow(header);
+
+        long rows = 0;
+        try (Cursor<Map<String, Object>> cursor = openCursor(dataset, filters)) {
+            List<Object> values = new ArrayList<>(Arrays.asList(new Object[columns.length]));
+            for (Map<String, Object> row : cursor) {
+                for (int i = 0; i < columns.length; i++) {
+                    values.set(i, format(row.get(columns[i][0])));
+                }
+                writer.writeRow(values);
+                rows++;
+            }
+        }
+        writer.finish();
+
+        log.info("导出完成: {}.{}，{} 行，耗时 {}ms，条件: {}", dataset, format, rows, System.currentTimeMillis() - start, filters);
+        return rows;
+    }
+
+    private Cursor<Map<String, Object>> openCursor(String dataset, Map<String, Long> filters) {
+        switch (dataset) {
+            case ExportConstants.DATASET_EXAM_RESULTS:
+                return studentExamMapper.cursorExamResults(filters.get("teacherId"), filters.get("courseId"),
+                    filters.get("examId"), filters.get("studentId"));
+            case ExportConstants.DATASET_ANSWERS:
+                return studentAnswerMapper.cursorAnswerDetails(filters.get("teacherId"), filters.get("courseId"),
+                    filters.get("examId"), filters.get("studentId"));
+            default:
+                return studentPracticeMapper.cursorPracticeResults(filters.get("teacherId"), filters.get("courseId"),
+                    filters.get("practiceId"), filters.get("studentId"));
+        }
+    }
+
+    private static Object format(Object value) {
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).format(TIME_FORMATTER);
+        } else if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime().format(TIME_FORMATTER);
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? "是" : "否";
+        }
+        return value;
+    }
+}
@@ -1,18 +1,41 @@
 package com.experiment.service.Impl;
 
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.experiment.config.KnowledgeRetrievalProperties;
+import com.experiment.pojo.KnowledgeChunk;
 import com.experiment.service.KnowledgeBaseService;
+import com.experiment.utils.Bm25Index;
+import com.experiment.utils.CjkTokenizer;
+import com.experiment.utils.EmbeddingProvider;
+import com.experiment.utils.TokenEstimator;
+import com.experiment.utils.VectorIndex;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,6 +48,35 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     
     private static final String KNOWLEDGE_BASE_PATH = "front(2)/front(1)/public/knowledge-base";
     private static final Map<String, String> CATEGORIES = new HashMap<>();
+    private static final long WATCH_DEBOUNCE_MS = 300;
+
+    /**
+     * 各文件的段落缓存，文件变化时只重新读取该文件
+     */
+    private final Map<Path, List<KnowledgeChunk>> chunksByFile = new ConcurrentHashMap<>();
+
+    /**
+     * 当前生效的倒排索引，重建后整体替换
+     */
+    private volatile Bm25Index<KnowledgeChunk> index = Bm25Index.empty();
+
+    /**
+     * 当前生效的向量索引，与倒排索引同时重建
+     */
+    private volatile VectorIndex<KnowledgeChunk> vectorIndex = VectorIndex.empty();
+
+    @Autowired
+    private EmbeddingProvider embeddingProvider;
+
+    @Autowired
+    private KnowledgeRetrievalProperties retrievalProperties;
+
+    /**
+     * 索引版本号，每次重建后递增
+     */
+    private final AtomicLong indexVersion = new AtomicLong();
+
+    private WatchService watchService;
     
     static {
         CATEGORIES.put("tensorflow-js", "TensorFlow.js");
@@ -35,50 +87,266 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     
     @Override
     public List<String> searchKnowledge(String query) {
-        List<String> results = new ArrayList<>();
-        String lowerQuery = query.toLowerCase();
-        
+        return searchChunks(query, 10).stream()
+            .map(KnowledgeChunk::getContent)
+            .distinct()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 按BM25得分检索知识库段落
+     * @param query 搜索查询
+     * @param limit 最多返回条数
+     * @return 按相关度从高到低排序的段落
+     */
+    public List<KnowledgeChunk> searchChunks(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return new ArrayList<>();
+        }
+        List<String> queryTokens = CjkTokenizer.tokenize(query);
+        return index.search(queryTokens, limit).stream()
+            .map(Bm25Index.Hit::getDocument)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 启动时加载知识库并建立倒排索引，随后监听目录变化
+     */
+    @PostConstruct
+    public void initIndex() {
+        Path root = Paths.get(KNOWLEDGE_BASE_PATH);
+        if (!Files.exists(root)) {
+            log.warn("知识库目录不存在，跳过索引构建: {}", root.toAbsolutePath());
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(this::isMarkdown).forEach(this::loadFile);
+        } catch (IOException e) {
+            log.error("加载知识库失败", e);
+        }
+        rebuildIndex();
+        log.info("知识库索引构建完成，文件数: {}，段落数: {}，词项数: {}，耗时: {}ms",
+            chunksByFile.size(), index.size(), index.termCount(), System.currentTimeMillis() - start);
+
+        startWatcher(root);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("关闭知识库目录监听失败", e);
+            }
+        }
+    }
+
+    private boolean isMarkdown(Path path) {
+        return path.toString().endsWith(".md") && Files.isRegularFile(path);
+    }
+
+    /**
+     * 读取单个markdown文件并切分为段落，结果缓存在chunksByFile中
+     */
+    private void loadFile(Path path) {
         try {
-            // 遍历知识库目录
-            Path knowledgePath = Paths.get(KNOWLEDGE_BASE_PATH);
-            if (!Files.exists(knowledgePath)) {
-                log.warn("知识库目录不存在: {}", knowledgePath);
-                return results;
+            String content = Files.readString(path);
+            Path file = path.toAbsolutePath().normalize();
+            Path relative = Paths.get(KNOWLEDGE_BASE_PATH).toAbsolutePath().normalize().relativize(file);
+            String source = relative.toString().replace('\\', '/');
+            String category = relative.getNameCount() > 1 ? relative.getName(0).toString() : "";
+
+            boolean embed = isVectorMode();
+            List<KnowledgeChunk> chunks = new ArrayList<>();
+            String title = "";
+            for (String paragraph : content.split("\n\n")) {
+                String trimmed = paragraph.trim();
+                String heading = lastHeading(trimmed);
+                if (heading != null) {
+                    title = heading;
+                }
+                if (trimmed.length() > 50) {
+                    String text = title + "\n" + trimmed;
+                    chunks.add(new KnowledgeChunk(source, category, title, trimmed,
+                        CjkTokenizer.tokenize(text), embed ? embeddingProvider.embed(text) : null));
+                }
             }
-            
-            // 递归搜索所有markdown文件
-            Files.walk(knowledgePath)
-                .filter(path -> path.toString().endsWith(".md"))
-                .forEach(path -> {
-                    try {
-                        String content = Files.readString(path);
-                        if (content.toLowerCase().contains(lowerQuery)) {
-                            // 提取包含查询关键词的段落
-                            String[] paragraphs = content.split("\n\n");
-                            for (String paragraph : paragraphs) {
-                                if (paragraph.toLowerCase().contains(lowerQuery) && 
-                                    paragraph.trim().length() > 50) {
-                                    results.add(paragraph.trim());
-                                }
-                            }
-                        }
-                    } catch (IOException e) {
-                        log.error("读取知识库文件失败: {}", path, e);
+            chunksByFile.put(file, chunks);
+        } catch (IOException e) {
+            log.error("读取知识库文件失败: {}", path, e);
+        }
+    }
+
+    private String lastHeading(String paragraph) {
+        String heading = null;
+        for (String line : paragraph.split("\n")) {
+            if (line.startsWith("#")) {
+                heading = line.replaceFirst("^#+\\s*", "").trim();
+            }
+        }
+        return heading;
+    }
+
+    /**
+     * 用缓存的段落重建索引并整体替换，查询线程始终看到完整的旧索引或新索引
+     * 向量索引只在vector模式下构建，bm25模式不计算段落向量
+     */
+    private synchronized void rebuildIndex() {
+        List<KnowledgeChunk> allChunks = getAllChunks();
+        index = Bm25Index.build(allChunks, KnowledgeChunk::getTokens);
+        vectorIndex = isVectorMode()
+            ? VectorIndex.build(allChunks, KnowledgeChunk::getEmbedding, embeddingProvider.dimension())
+            : VectorIndex.empty();
+        indexVersion.incrementAndGet();
+    }
+
+    private boolean isVectorMode() {
+        return "vector".equalsIgnoreCase(retrievalProperties.getMode());
+    }
+
+    @Override
+    public List<KnowledgeChunk> getAllChunks() {
+        List<KnowledgeChunk> allChunks = new ArrayList<>();
+        chunksByFile.values().forEach(allChunks::addAll);
+        return allChunks;
+    }
+
+    @Override
+    public long getIndexVersion() {
+        return indexVersion.get();
+    }
+
+    /**
+     * 按向量相似度检索知识库段落（仅vector模式下有向量索引，其他模式返回空列表）
+     * @param query 查询内容
+     * @param limit 最多返回条数
+     * @return 按相似度从高到低排序的段落
+     */
+    public List<KnowledgeChunk> searchChunksByVector(String query, int limit) {
+        if (query == null || query.isBlank() || !isVectorMode()) {
+            return new ArrayList<>();
+        }
+        return vectorIndex.search(embeddingProvider.embed(query), limit, retrievalProperties.getMinScore()).stream()
+            .map(Bm25Index.Hit::getDocument)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 监听知识库目录，markdown文件变化时只重新读取变化的文件；事件队列溢出时重新扫描整个目录
+     */
+    private void startWatcher(Path root) {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerRecursive(root);
+        } catch (IOException e) {
+            log.warn("知识库目录监听启动失败，索引将不会自动更新", e);
+            return;
+        }
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    Set<Path> changed = new HashSet<>();
+                    boolean overflow = collectChanges(key, changed);
+                    // 合并短时间内的连续事件（编辑器保存时常触发多次）
+                    WatchKey next;
+                    while ((next = watchService.poll(WATCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                        overflow |= collectChanges(next, changed);
+                    }
+                    if (overflow) {
+                        reloadAll(root);
+                    } else {
+                        applyChanges(changed);
                     }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                log.info("知识库目录监听已停止");
+            }
+        }, "kb-index-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void registerRecursive(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    /**
+     * 收集一个WatchKey上的变化路径
+     * @return 是否发生事件溢出（部分变化已丢失）
+     */
+    private boolean collectChanges(WatchKey key, Set<Path> changed) {
+        Path dir = (Path) key.watchable();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            changed.add(dir.resolve((Path) event.context()).toAbsolutePath().normalize());
+        }
+        key.reset();
+        return overflow;
+    }
+
+    /**
+     * 事件溢出后无法得知具体哪些文件变化，重新扫描整个知识库目录：重新读取所有文件并移除已不存在的文件
+     */
+    private void reloadAll(Path root) {
+        Set<Path> present = new HashSet<>();
+        try {
+            registerRecursive(root);
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.filter(this::isMarkdown).forEach(path -> {
+                    present.add(path.toAbsolutePath().normalize());
+                    loadFile(path);
                 });
-            
-            // 限制返回结果数量
-            return results.stream()
-                .distinct()
-                .limit(10)
-                .collect(Collectors.toList());
-                
+            }
         } catch (IOException e) {
-            log.error("搜索知识库失败", e);
-            return results;
+            log.error("重新加载知识库失败，保留现有段落", e);
+            return;
         }
+        chunksByFile.keySet().retainAll(present);
+        rebuildIndex();
+        log.warn("知识库目录监听事件溢出，已重新加载全部文件，文件数: {}，段落数: {}", chunksByFile.size(), index.size());
     }
-    
+
+    private void applyChanges(Set<Path> changed) {
+        boolean dirty = false;
+        for (Path path : changed) {
+            if (Files.isDirectory(path)) {
+                try {
+                    registerRecursive(path);
+                    try (Stream<Path> paths = Files.walk(path)) {
+                        paths.filter(this::isMarkdown).forEach(this::loadFile);
+                    }
+                    dirty = true;
+                } catch (IOException e) {
+                    log.error("监听新增知识库目录失败: {}", path, e);
+                }
+            } else if (isMarkdown(path)) {
+                loadFile(path);
+                dirty = true;
+            } else if (path.toString().endsWith(".md") || !Files.exists(path)) {
+                // 文件或目录被删除，移除其下所有段落
+                dirty |= chunksByFile.keySet().removeIf(file -> file.startsWith(path));
+            }
+        }
+        if (dirty) {
+            rebuildIndex();
+            log.info("知识库索引已更新，变化文件数: {}，段落数: {}", changed.size(), index.size());
+        }
+    }
+
     @Override
     public Map<String, String> getCategories() {
         return new HashMap<>(CATEGORIES);
@@ -145,20 +413,43 @@ public class KnowledgeBaseServiceImpl implements KnowledgeBaseService {
     /**
      * 获取知识库上下文，用于AI回答
      */
+    @Override
     public String getKnowledgeContext(String query) {
-        List<String> searchResults = searchKnowledge(query);
-        if (searchResults.isEmpty()) {
+        return getKnowledgeContext(query, retrievalProperties.getContextTokenBudget());
+    }
+
+    @Override
+    public String getKnowledgeContext(String query, int tokenBudget) {
+        int topK = retrievalProperties.getContextTopK();
+        List<KnowledgeChunk> chunks = isVectorMode()
+            ? searchChunksByVector(query, topK)
+            : searchChunks(query, topK);
+        if (chunks.isEmpty()) {
             return "未找到相关知识库内容。";
         }
         
         StringBuilder context = new StringBuilder();
         context.append("根据知识库检索到的相关信息：\n\n");
+        int used = TokenEstimator.estimate(context.toString());
         
-        for (int i = 0; i < Math.min(searchResults.size(), 5); i++) {
-            context.append("**片段 ").append(i + 1).append("：**\n");
-            context.append(searchResults.get(i)).append("\n\n");
+        // 按相关度依次加入片段，超出预算时截断当前片段并停止
+        int count = 0;
+        for (KnowledgeChunk chunk : chunks) {
+            String header = "**片段 " + (count + 1) + "：**\n";
+            int remaining = tokenBudget - used - TokenEstimator.estimate(header);
+            if (remaining <= 0) {
+                break;
+            }
+            String content = TokenEstimator.truncate(chunk.getContent(), remaining);
+            context.append(header).append(content).append("\n\n");
+            used += TokenEstimator.estimate(header) + TokenEstimator.estimate(content);
+            count++;
+            if (!content.equals(chunk.getContent())) {
+                break;
+            }
         }
         
+        log.debug("知识库上下文: 查询={}，片段数={}，估算token={}", query, count, used);
         return context.toString();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,402 @@
+package com.experiment.service.Impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.experiment.config.KnowledgeSearchProperties;
+import com.experiment.mapper.ClassSummaryMapper;
+import com.experiment.mapper.CourseResourceMapper;
+import com.experiment.pojo.ClassSummary;
+import com.experiment.pojo.CourseResource;
+import com.experiment.pojo.KnowledgeChunk;
+import com.experiment.pojo.SearchDocument;
+import com.experiment.service.KnowledgeBaseService;
+import com.experiment.service.KnowledgeSearchService;
+import com.experiment.utils.Bm25Index;
+import com.experiment.utils.CjkTokenizer;
+import com.experiment.utils.MapperWriteListener;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 统一检索服务实现类
+ * 索引在后台线程构建并整体替换，查询只读内存中的快照，不访问数据库和文件；
+ * 课堂总结、课程资源的写操作由MapperWriteInterceptor回调标记重建，不依赖调用方手动通知
+ */
+@Slf4j
+@Service
+public class KnowledgeSearchServiceImpl implements KnowledgeSearchService, MapperWriteListener {
+
+    public static final String TYPE_KNOWLEDGE = "knowledge";
+    public static final String TYPE_CLASS_SUMMARY = "class-summary";
+    public static final String TYPE_COURSE_RESOURCE = "course-resource";
+
+    @Autowired
+    private KnowledgeBaseService knowledgeBaseService;
+
+    @Autowired
+    private ClassSummaryMapper classSummaryMapper;
+
+    @Autowired
+    private CourseResourceMapper courseResourceMapper;
+
+    @Autowired
+    private KnowledgeSearchProperties properties;
+
+    /**
+     * 当前生效的索引快照
+     */
+    private volatile IndexSnapshot snapshot = IndexSnapshot.EMPTY;
+
+    /**
+     * 数据库中的课堂总结或课程资源有变化，需要重建
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    private ScheduledExecutorService refresher;
+
+    /**
+     * 启动后立即在后台预热索引，之后定期检查是否需要重建
+     */
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kb-search-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshIfNeeded, 0,
+            properties.getRefreshCheckSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    @Override
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(ClassSummaryMapper.class, CourseResourceMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        // 浏览、下载计数不参与检索，不必重建
+        if (statementId.endsWith(".incrementViewCount") || statementId.endsWith(".updateDownloadCount")) {
+            return;
+        }
+        markDirty();
+    }
+
+    private void refreshIfNeeded() {
+        try {
+            long knowledgeVersion = knowledgeBaseService.getIndexVersion();
+            if (dirty.getAndSet(false) || knowledgeVersion != snapshot.knowledgeVersion) {
+                rebuild(knowledgeVersion);
+            }
+        } catch (Exception e) {
+            dirty.set(true);
+            log.error("重建统一检索索引失败，将在下次检查时重试", e);
+        }
+    }
+
+    private synchronized void rebuild(long knowledgeVersion) {
+        long start = System.currentTimeMillis();
+        List<SearchDocument> documents = new ArrayList<>();
+
+        for (KnowledgeChunk chunk : knowledgeBaseService.getAllChunks()) {
+            documents.add(fromKnowledgeChunk(chunk));
+        }
+        for (ClassSummary summary : classSummaryMapper.selectAllPublished()) {
+            documents.add(fromClassSummary(summary));
+        }
+        for (CourseResource resource : courseResourceMapper.searchResources(null, null, null)) {
+            documents.add(fromCourseResource(resource));
+        }
+
+        Bm25Index<SearchDocument> index = Bm25Index.build(documents, SearchDocument::getTokens);
+        long buildMs = System.currentTimeMillis() - start;
+        snapshot = new IndexSnapshot(index, Collections.unmodifiableList(documents), knowledgeVersion,
+            LocalDateTime.now(), buildMs);
+        log.info("统一检索索引重建完成，文档数: {}，词项数: {}，耗时: {}ms", documents.size(), index.termCount(), buildMs);
+    }
+
+    @Override
+    public Map<String, Object> search(String keyword, String type, int page, int pageSize) {
+        long startNanos = System.nanoTime();
+        if (snapshot == IndexSnapshot.EMPTY) {
+            // 首次预热尚未完成时同步构建，避免返回空结果
+            refreshIfNeeded();
+        }
+        IndexSnapshot current = snapshot;
+
+        int size = Math.max(1, Math.min(pageSize > 0 ? pageSize : properties.getDefaultPageSize(), properties.getMaxPageSize()));
+        int currentPage = Math.max(page, 1);
+        int offset = (currentPage - 1) * size;
+        Predicate<SearchDocument> filter = type == null || type.isBlank() ? null : doc -> type.equals(doc.getType());
+
+        List<String> queryTokens = keyword == null ? Collections.emptyList() : CjkTokenizer.tokenize(keyword);
+        if (queryTokens.size() > properties.getMaxQueryTokens()) {
+            queryTokens = queryTokens.subList(0, properties.getMaxQueryTokens());
+        }
+        Set<String> highlightTerms = new LinkedHashSet<>(queryTokens);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        int total;
+        if (queryTokens.isEmpty()) {
+            // 无关键词时按索引顺序浏览
+            List<SearchDocument> matched = filter == null ? current.documents
+                : current.documents.stream().filter(filter).collect(Collectors.toList());
+            total = matched.size();
+            for (int i = offset; i < Math.min(offset + size, total); i++) {
+                results.add(toResult(matched.get(i), 0, highlightTerms));
+            }
+        } else if (offset >= properties.getMaxResults()) {
+            total = 0;
+        } else {
+            int topK = Math.min(offset + size, properties.getMaxResults());
+            Bm25Index.TopHits<SearchDocument> topHits = current.index.search(queryTokens, topK, filter);
+            total = Math.min(topHits.getTotalHits(), properties.getMaxResults());
+            List<Bm25Index.Hit<SearchDocument>> hits = topHits.getHits();
+            for (int i = offset; i < hits.size(); i++) {
+                results.add(toResult(hits.get(i).getDocument(), hits.get(i).getScore(), highlightTerms));
+            }
+        }
+
+        long tookMs = (System.nanoTime() - startNanos) / 1_000_000;
+        if (tookMs > properties.getLatencyBudgetMs()) {
+            log.warn("统一检索耗时超出预算: {}ms > {}ms，关键词: {}，文档数: {}",
+                tookMs, properties.getLatencyBudgetMs(), keyword, current.documents.size());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("keyword", keyword);
+        response.put("type", type);
+        response.put("results", results);
+        response.put("total", total);
+        response.put("page", currentPage);
+        response.put("pageSize", size);
+        response.put("tookMs", tookMs);
+        return response;
+    }
+
+    @Override
+    public Map<String, Object> getIndexStats() {
+        IndexSnapshot current = snapshot;
+        Map<String, Long> byType = current.documents.stream()
+            .collect(Collectors.groupingBy(SearchDocument::getType, Collectors.counting()));
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("documentCount", current.documents.size());
+        stats.put("documentsByType", byType);
+        stats.put("termCount", current.index.termCount());
+        stats.put("knowledgeVersion", current.knowledgeVersion);
+        stats.put("lastBuildTime", current.builtAt);
+        stats.put("lastBuildMs", current.buildMs);
+        stats.put("pendingRefresh", dirty.get());
+        return stats;
+    }
+
+    private SearchDocument fromKnowledgeChunk(KnowledgeChunk chunk) {
+        String fileName = chunk.getSource().substring(chunk.getSource().lastIndexOf('/') + 1);
+        String topic = fileName.endsWith(".md") ? fileName.substring(0, fileName.length() - 3) : fileName;
+
+        SearchDocument doc = new SearchDocument();
+        doc.setType(TYPE_KNOWLEDGE);
+        doc.setRefId(chunk.getSource());
+        doc.setTitle(chunk.getTitle() == null || chunk.getTitle().isEmpty() ? topic : chunk.getTitle());
+        doc.setCategory(chunk.getCategory());
+        doc.setTopic(topic);
+        doc.setContent(plainText(chunk.getContent()));
+        doc.setUrl("/knowledge-base/" + chunk.getSource());
+        doc.setTokens(chunk.getTokens());
+        return doc;
+    }
+
+    private SearchDocument fromClassSummary(ClassSummary summary) {
+        String content = summary.getFinalContent() != null ? summary.getFinalContent()
+            : summary.getSummaryContent() != null ? summary.getSummaryContent()
+            : summary.getDescription();
+
+        SearchDocument doc = new SearchDocument();
+        doc.setType(TYPE_CLASS_SUMMARY);
+        doc.setRefId(String.valueOf(summary.getId()));
+        doc.setTitle(summary.getTitle());
+        doc.setCategory(TYPE_CLASS_SUMMARY);
+        doc.setTopic(summary.getCourseName());
+        doc.setContent(plainText(content));
+        doc.setTokens(buildTokens(summary.getTitle(), summary.getKeywords(), summary.getDescription(), content));
+        return doc;
+    }
+
+    private SearchDocument fromCourseResource(CourseResource resource) {
+        String content = (resource.getDescription() != null ? resource.getDescription() + " " : "") + resource.getFileName();
+
+        SearchDocument doc = new SearchDocument();
+        doc.setType(TYPE_COURSE_RESOURCE);
+        doc.setRefId(String.valueOf(resource.getId()));
+        doc.setTitle(resource.getTitle());
+        doc.setCategory(resource.getFileType());
+        doc.setTopic(resource.getCourseName());
+        doc.setContent(plainText(content));
+        doc.setUrl(resource.getFileUrl());
+        doc.setTokens(buildTokens(resource.getTitle(), resource.getCourseName(), content));
+        return doc;
+    }
+
+    /**
+     * 标题词项重复一次，使标题命中的权重高于正文
+     */
+    private List<String> buildTokens(String title, String... fields) {
+        List<String> tokens = new ArrayList<>(CjkTokenizer.tokenize(title));
+        tokens.addAll(CjkTokenizer.tokenize(title));
+        for (String field : fields) {
+            tokens.addAll(CjkTokenizer.tokenize(field));
+        }
+        return tokens;
+    }
+
+    /**
+     * 去掉markdown标记并合并空白，用于展示摘要
+     */
+    private String plainText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replaceAll("[#*`>|]+", "").replaceAll("\\s+", " ").trim();
+    }
+
+    private Map<String, Object> toResult(SearchDocument doc, double score, Set<String> terms) {
+        String title = doc.getTitle() == null ? "" : doc.getTitle();
+        int[] window = snippetWindow(doc.getContent(), terms);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", doc.getType() + ":" + doc.getRefId());
+        result.put("type", doc.getType());
+        result.put("refId", doc.getRefId());
+        result.put("title", title);
+        result.put("category", doc.getCategory());
+        result.put("topic", doc.getTopic());
+        result.put("url", doc.getUrl());
+        result.put("score", Math.round(score * 1000) / 1000.0);
+        result.put("summary", snippet(doc.getContent(), window, null));
+        result.put("highlightTitle", snippet(title, new int[]{0, title.length()}, terms));
+        result.put("highlight", snippet(doc.getContent(), window, terms));
+        return result;
+    }
+
+    /**
+     * 以第一个命中词为中心截取摘要区间
+     */
+    private int[] snippetWindow(String text, Set<String> terms) {
+        int length = properties.getSnippetLength();
+        String lower = text.toLowerCase();
+        int first = -1;
+        for (String term : terms) {
+            int index = lower.indexOf(term);
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        int start = Math.max(0, first - length / 4);
+        int end = Math.min(text.length(), start + length);
+        start = Math.max(0, end - length);
+        return new int[]{start, end};
+    }
+
+    /**
+     * 生成摘要，terms不为空时用&lt;em&gt;标出命中词，其余内容做HTML转义
+     */
+    private String snippet(String text, int[] window, Set<String> terms) {
+        int start = window[0];
+        int end = window[1];
+        boolean[] marked = new boolean[text.length()];
+        if (terms != null) {
+            String lower = text.toLowerCase();
+            for (String term : terms) {
+                int index = lower.indexOf(term, Math.max(0, start - term.length()));
+                while (index >= 0 && index < end) {
+                    for (int i = index; i < Math.min(index + term.length(), marked.length); i++) {
+                        marked[i] = true;
+                    }
+                    index = lower.indexOf(term, index + 1);
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (start > 0) {
+            sb.append("…");
+        }
+        for (int i = start; i < end; i++) {
+            if (marked[i] && (i == start || !marked[i - 1])) {
+                sb.append("<em>");
+            }
+            char c = text.charAt(i);
+            if (terms == null) {
+                sb.append(c);
+            } else if (c == '<') {
+                sb.append("&lt;");
+            } else if (c == '>') {
+                sb.append("&gt;");
+            } else if (c == '&') {
+                sb.append("&amp;");
+            } else {
+                sb.append(c);
+            }
+            if (marked[i] && (i + 1 == end || !marked[i + 1])) {
+                sb.append("</em>");
+            }
+        }
+        if (end < text.length()) {
+            sb.append("…");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 索引快照，整体替换以保证查询看到一致的数据
+     */
+    private static class IndexSnapshot {
+        static final IndexSnapshot EMPTY = new IndexSnapshot(Bm25Index.empty(), Collections.emptyList(), -1, null, 0);
+
+        final Bm25Index<SearchDocument> index;
+        final List<SearchDocument> documents;
+        final long knowledgeVersion;
+        final LocalDateTime builtAt;
+        final long buildMs;
+
+        IndexSnapshot(Bm25Index<SearchDocument> index, List<SearchDocument> documents, long knowledgeVersion,
+                      LocalDateTime builtAt, long buildMs) {
+            this.index = index;
+            this.documents = documents;
+            this.knowledgeVersion = knowledgeVersion;
+            this.builtAt = builtAt;
+            this.buildMs = buildMs;
+        }
+    }
+}
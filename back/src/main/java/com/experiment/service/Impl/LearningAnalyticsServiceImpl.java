@@ -0,0 +1,458 @@
+package com.experiment.service.Impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.experiment.config.LearningAnalyticsProperties;
+import com.experiment.event.PracticeStartedEvent;
+import com.experiment.event.PracticeSubmittedEvent;
+import com.experiment.event.UserLoginEvent;
+import com.experiment.mapper.AnalyticsCheckpointMapper;
+import com.experiment.mapper.StudentExamMapper;
+import com.experiment.mapper.StudentPracticeMapper;
+import com.experiment.mapper.UserMapper;
+import com.experiment.pojo.StudentActivity;
+import com.experiment.service.LearningAnalyticsService;
+import com.experiment.utils.HyperLogLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 学习统计服务实现
+ * 事件在所在事务提交后投递（非事务调用立即投递），每个事件只做常数次内存更新
+ */
+@Slf4j
+@Service
+public class LearningAnalyticsServiceImpl implements LearningAnalyticsService {
+
+    private static final String CHECKPOINT_DAILY_ACTIVE_SKETCHES = "daily_active_hll";
+    private static final String CHECKPOINT_DAILY_LOGINS = "daily_logins";
+    private static final String CHECKPOINT_STUDENT_ACTIVITY = "student_activity";
+    private static final String CHECKPOINT_SCORE_HISTOGRAM = "score_histogram";
+
+    /**
+     * 活跃用户统计窗口（天），月活按近30天计算
+     */
+    private static final int ACTIVE_WINDOW_DAYS = 30;
+    private static final int WEEK_DAYS = 7;
+
+    /**
+     * 分数段，与 StudentExamMapper.selectGradeDistribution 的划分一致
+     */
+    private static final String[] SCORE_BUCKETS = {"excellent", "good", "average", "below", "poor"};
+
+    @Autowired
+    private LearningAnalyticsProperties properties;
+
+    @Autowired
+    private AnalyticsCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private StudentPracticeMapper studentPracticeMapper;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 每天一个HyperLogLog草图，周活、月活由多天草图合并得到
+     */
+    private final Map<LocalDate, HyperLogLog> dailyActiveUsers = new ConcurrentHashMap<>();
+    private final Map<LocalDate, LongAdder> dailyLogins = new ConcurrentHashMap<>();
+    private final Map<Long, StudentActivity> activities = new ConcurrentHashMap<>();
+    private final AtomicLongArray scoreHistogram = new AtomicLongArray(SCORE_BUCKETS.length);
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private ScheduledExecutorService checkpointer;
+
+    @PostConstruct
+    public void init() {
+        try {
+            if (!restore()) {
+                seed();
+                dirty.set(true);
+            }
+        } catch (Exception e) {
+            log.warn("学习统计计数器恢复失败，从空计数器开始", e);
+        }
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "learning-analytics-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointIfDirty,
+            properties.getCheckpointSeconds(), properties.getCheckpointSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+        checkpointIfDirty();
+    }
+
+    // ==================== 事件消费 ====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserLogin(UserLoginEvent event) {
+        LocalDate day = dayOf(event.getLoginTime());
+        markActive(event.getUserId(), day);
+        dailyLogins.computeIfAbsent(day, d -> new LongAdder()).increment();
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPracticeStarted(PracticeStartedEvent event) {
+        LocalDate day = dayOf(event.getStartTime());
+        markActive(event.getStudentId(), day);
+        activities.compute(event.getStudentId(), (id, activity) -> {
+            activity = touch(activity, id, day);
+            activity.setStartedPractices(activity.getStartedPractices() + 1);
+            return activity;
+        });
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPracticeSubmitted(PracticeSubmittedEvent event) {
+        LocalDate day = dayOf(event.getCompleteTime());
+        markActive(event.getStudentId(), day);
+        activities.compute(event.getStudentId(), (id, activity) -> {
+            activity = touch(activity, id, day);
+            activity.setCompletedPractices(activity.getCompletedPractices() + 1);
+            activity.setScoreSum(activity.getScoreSum() + event.getScore());
+            activity.setTotalScoreSum(activity.getTotalScoreSum() + event.getTotalScore());
+            return activity;
+        });
+        scoreHistogram.incrementAndGet(bucketOf(event.getScore()));
+        dirty.set(true);
+    }
+
+    private void markActive(Long userId, LocalDate day) {
+        if (userId == null) {
+            return;
+        }
+        dailyActiveUsers.computeIfAbsent(day, d -> new HyperLogLog()).add(userId);
+    }
+
+    /**
+     * 记录一次学习，按日期推进连续学习天数
+     */
+    private static StudentActivity touch(StudentActivity activity, Long studentId, LocalDate day) {
+        if (activity == null) {
+            activity = newActivity(studentId);
+        }
+        LocalDate last = activity.getLastActiveDate();
+        if (last == null || day.isAfter(last.plusDays(1))) {
+            activity.setStreakDays(1);
+            activity.setLastActiveDate(day);
+        } else if (day.equals(last.plusDays(1))) {
+            activity.setStreakDays(activity.getStreakDays() + 1);
+            activity.setLastActiveDate(day);
+        }
+        return activity;
+    }
+
+    private static StudentActivity newActivity(Long studentId) {
+        StudentActivity activity = new StudentActivity();
+        activity.setStudentId(studentId);
+        activity.setStreakDays(0);
+        activity.setStartedPractices(0L);
+        activity.setCompletedPractices(0L);
+        activity.setScoreSum(0L);
+        activity.setTotalScoreSum(0L);
+        return activity;
+    }
+
+    private static int bucketOf(int score) {
+        if (score >= 90) {
+            return 0;
+        } else if (score >= 80) {
+            return 1;
+        } else if (score >= 70) {
+            return 2;
+        } else if (score >= 60) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private static LocalDate dayOf(LocalDateTime time) {
+        return time != null ? time.toLocalDate() : LocalDate.now();
+    }
+
+    // ==================== 查询 ====================
+
+    @Override
+    public Map<String, Integer> getActiveUsers() {
+        LocalDate today = LocalDate.now();
+        Map<String, Integer> result = new HashMap<>();
+        result.put("today", countActive(today, 1));
+        result.put("week", countActive(today, WEEK_DAYS));
+        result.put("month", countActive(today, ACTIVE_WINDOW_DAYS));
+        return result;
+    }
+
+    private int countActive(LocalDate today, int days) {
+        HyperLogLog union = new HyperLogLog();
+        for (int i = 0; i < days; i++) {
+            HyperLogLog sketch = dailyActiveUsers.get(today.minusDays(i));
+            if (sketch != null) {
+                union.merge(sketch);
+            }
+        }
+        return (int) union.estimate();
+    }
+
+    @Override
+    public long getWeeklyLogins() {
+        LocalDate today = LocalDate.now();
+        long total = 0;
+        for (int i = 0; i < WEEK_DAYS; i++) {
+            LongAdder logins = dailyLogins.get(today.minusDays(i));
+            if (logins != null) {
+                total += logins.sum();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Object> getStudentActivity(Long studentId) {
+        StudentActivity activity = copyOf(studentId);
+        long started = 0;
+        long completed = 0;
+        long scoreSum = 0;
+        int streakDays = 0;
+        if (activity != null) {
+            started = activity.getStartedPractices();
+            completed = activity.getCompletedPractices();
+            scoreSum = activity.getScoreSum();
+            // 昨天之后没有再学习则连续天数已中断
+            LocalDate last = activity.getLastActiveDate();
+            if (last != null && !last.isBefore(LocalDate.now().minusDays(1))) {
+                streakDays = activity.getStreakDays();
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("streakDays", streakDays);
+        result.put("startedPractices", started);
+        result.put("completedPractices", completed);
+        result.put("completionRate", started > 0 ? Math.round(Math.min(completed, started) * 1000.0 / started) / 10.0 : 0.0);
+        result.put("avgScore", completed > 0 ? Math.round(scoreSum * 10.0 / completed) / 10.0 : 0.0);
+        return result;
+    }
+
+    /**
+     * 在计数器所在的锁内复制一份，避免读到事件更新到一半的数据
+     */
+    private StudentActivity copyOf(Long studentId) {
+        StudentActivity[] holder = new StudentActivity[1];
+        activities.computeIfPresent(studentId, (id, activity) -> {
+            holder[0] = new StudentActivity();
+            BeanUtils.copyProperties(activity, holder[0]);
+            return activity;
+        });
+        return holder[0];
+    }
+
+    @Override
+    public Map<String, Long> getScoreHistogram() {
+        Map<String, Long> result = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < SCORE_BUCKETS.length; i++) {
+            long count = scoreHistogram.get(i);
+            result.put(SCORE_BUCKETS[i], count);
+            total += count;
+        }
+        result.put("total", total);
+        return result;
+    }
+
+    // ==================== 检查点 ====================
+
+    private void checkpointIfDirty() {
+        if (dirty.getAndSet(false)) {
+            try {
+                checkpoint();
+            } catch (Exception e) {
+                dirty.set(true);
+                log.warn("学习统计检查点写入失败，稍后重试", e);
+            }
+        }
+    }
+
+    @Override
+    public void checkpoint() {
+        pruneExpiredDays();
+        try {
+            Map<String, String> active = new TreeMap<>();
+            dailyActiveUsers.forEach((day, sketch) -> active.put(day.toString(), Base64.getEncoder().encodeToString(sketch.toBytes())));
+            Map<String, Long> logins = new TreeMap<>();
+            dailyLogins.forEach((day, count) -> logins.put(day.toString(), count.sum()));
+            List<StudentActivity> snapshot = new ArrayList<>(activities.size());
+            for (Long studentId : activities.keySet()) {
+                StudentActivity copy = copyOf(studentId);
+                if (copy != null) {
+                    snapshot.add(copy);
+                }
+            }
+
+            checkpointMapper.upsert(CHECKPOINT_DAILY_ACTIVE_SKETCHES, objectMapper.writeValueAsString(active));
+            checkpointMapper.upsert(CHECKPOINT_DAILY_LOGINS, objectMapper.writeValueAsString(logins));
+            checkpointMapper.upsert(CHECKPOINT_STUDENT_ACTIVITY, objectMapper.writeValueAsString(snapshot));
+            checkpointMapper.upsert(CHECKPOINT_SCORE_HISTOGRAM, objectMapper.writeValueAsString(getScoreHistogram()));
+            log.debug("学习统计检查点已写入: {} 名学生, {} 天活跃记录", snapshot.size(), active.size());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("学习统计序列化失败", e);
+        }
+    }
+
+    private void pruneExpiredDays() {
+        LocalDate oldest = LocalDate.now().minusDays(ACTIVE_WINDOW_DAYS - 1);
+        dailyActiveUsers.keySet().removeIf(day -> day.isBefore(oldest));
+        dailyLogins.keySet().removeIf(day -> day.isBefore(oldest));
+    }
+
+    /**
+     * 从检查点恢复计数器
+     * @return 是否存在检查点
+     */
+    private boolean restore() throws Exception {
+        String activityJson = checkpointMapper.selectValue(CHECKPOINT_STUDENT_ACTIVITY);
+        if (activityJson == null) {
+            return false;
+        }
+        for (StudentActivity activity : objectMapper.readValue(activityJson, new TypeReference<List<StudentActivity>>() {})) {
+            activities.put(activity.getStudentId(), activity);
+        }
+
+        String sketchesJson = checkpointMapper.selectValue(CHECKPOINT_DAILY_ACTIVE_SKETCHES);
+        if (sketchesJson != null) {
+            Map<String, String> sketches = objectMapper.readValue(sketchesJson, new TypeReference<Map<String, String>>() {});
+            sketches.forEach((day, encoded) ->
+                dailyActiveUsers.put(LocalDate.parse(day), HyperLogLog.fromBytes(Base64.getDecoder().decode(encoded))));
+        }
+
+        String loginsJson = checkpointMapper.selectValue(CHECKPOINT_DAILY_LOGINS);
+        if (loginsJson != null) {
+            Map<String, Long> logins = objectMapper.readValue(loginsJson, new TypeReference<Map<String, Long>>() {});
+            logins.forEach((day, count) -> {
+                LongAdder adder = new LongAdder();
+                adder.add(count);
+                dailyLogins.put(LocalDate.parse(day), adder);
+            });
+        }
+
+        String histogramJson = checkpointMapper.selectValue(CHECKPOINT_SCORE_HISTOGRAM);
+        if (histogramJson != null) {
+            Map<String, Long> histogram = objectMapper.readValue(histogramJson, new TypeReference<Map<String, Long>>() {});
+            for (int i = 0; i < SCORE_BUCKETS.length; i++) {
+                scoreHistogram.set(i, histogram.getOrDefault(SCORE_BUCKETS[i], 0L));
+            }
+        }
+        pruneExpiredDays();
+        log.info("学习统计计数器已从检查点恢复: {} 名学生", activities.size());
+        return true;
+    }
+
+    /**
+     * 首次启动没有检查点时，用少量聚合查询从历史数据初始化计数器
+     */
+    private void seed() {
+        LocalDateTime since = LocalDate.now().minusDays(properties.getSeedDays()).atStartOfDay();
+
+        for (Map<String, Object> row : studentPracticeMapper.selectActivitySeed()) {
+            Long studentId = toLong(row.get("studentId"));
+            StudentActivity activity = newActivity(studentId);
+            activity.setStartedPractices(toLong(row.get("startedPractices")));
+            activity.setCompletedPractices(toLong(row.get("completedPractices")));
+            activity.setScoreSum(toLong(row.get("scoreSum")));
+            activity.setTotalScoreSum(toLong(row.get("totalScoreSum")));
+            activities.put(studentId, activity);
+        }
+
+        // 按日期顺序回放学习日，推进连续学习天数
+        Map<Long, TreeMap<LocalDate, Boolean>> daysByStudent = new HashMap<>();
+        for (Map<String, Object> row : studentPracticeMapper.selectActiveDaysSince(since)) {
+            LocalDate day = toLocalDate(row.get("activeDate"));
+            if (day != null) {
+                daysByStudent.computeIfAbsent(toLong(row.get("studentId")), id -> new TreeMap<>()).put(day, Boolean.TRUE);
+            }
+        }
+        daysByStudent.forEach((studentId, days) -> {
+            StudentActivity activity = activities.computeIfAbsent(studentId, LearningAnalyticsServiceImpl::newActivity);
+            for (LocalDate day : days.keySet()) {
+                touch(activity, studentId, day);
+                markActive(studentId, day);
+            }
+        });
+
+        for (Map<String, Object> row : userMapper.selectLastLoginSince(since)) {
+            LocalDate day = toLocalDate(row.get("lastLogin"));
+            if (day != null) {
+                markActive(toLong(row.get("userId")), day);
+            }
+        }
+
+        Map<String, Object> grades = studentExamMapper.selectGradeDistribution();
+        if (grades != null) {
+            for (int i = 0; i < SCORE_BUCKETS.length; i++) {
+                scoreHistogram.set(i, toLong(grades.get(SCORE_BUCKETS[i])));
+            }
+        }
+        pruneExpiredDays();
+        log.info("学习统计计数器已从历史数据初始化: {} 名学生", activities.size());
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        } else if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        } else if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime().toLocalDate();
+        } else if (value != null && value.toString().length() >= 10) {
+            return LocalDate.parse(value.toString().substring(0, 10));
+        }
+        return null;
+    }
+}
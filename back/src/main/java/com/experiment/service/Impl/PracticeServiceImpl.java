@@ -5,18 +5,22 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.experiment.constant.PracticeConstants;
+import com.experiment.event.PracticeStartedEvent;
+import com.experiment.event.PracticeSubmittedEvent;
 import com.experiment.exception.PracticeException;
 import com.experiment.mapper.PracticeMapper;
 import com.experiment.mapper.StudentPracticeMapper;
 import com.experiment.mapper.StudentExamMapper;
 import com.experiment.mapper.StudentAnswerMapper;
-import com.experiment.mapper.QuestionMapper;
+import com.experiment.mapper.StudentErrorAggregateMapper;
 import com.experiment.pojo.Practice;
 import com.experiment.pojo.StudentPractice;
 import com.experiment.pojo.StudentExam;
@@ -24,6 +28,7 @@ import com.experiment.pojo.StudentAnswer;
 import com.experiment.pojo.Question;
 import com.experiment.result.PageResult;
 import com.experiment.service.PracticeService;
+import com.experiment.utils.QuestionCache;
 
 @Service
 public class PracticeServiceImpl implements PracticeService {
@@ -41,7 +46,13 @@ public class PracticeServiceImpl implements PracticeService {
     private StudentAnswerMapper studentAnswerMapper;
     
     @Autowired
-    private QuestionMapper questionMapper;
+    private StudentErrorAggregateMapper studentErrorAggregateMapper;
+    
+    @Autowired
+    private QuestionCache questionCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Override
     public List<Map<String, Object>> getPracticeTypes() {
@@ -139,26 +150,53 @@ public class PracticeServiceImpl implements PracticeService {
     
     @Override
     public List<Map<String, Object>> getPracticeHistory(Long studentId) {
-        List<StudentPractice> studentPractices = studentPracticeMapper.selectByStudentId(studentId);
-        List<Map<String, Object>> history = new ArrayList<>();
-        
-        for (StudentPractice sp : studentPractices) {
-            if (PracticeConstants.STUDENT_STATUS_COMPLETED.equals(sp.getStatus())) {
-                Practice practice = practiceMapper.selectById(sp.getPracticeId());
-                if (practice != null) {
-                    Map<String, Object> record = new HashMap<>();
-                    record.put("id", sp.getId());
-                    record.put("title", practice.getTitle());
-                    record.put("score", sp.getScore());
-                    record.put("totalScore", sp.getTotalScore());
-                    record.put("accuracy", sp.getAccuracy());
-                    record.put("completedTime", sp.getCompleteTime());
-                    history.add(record);
-                }
+        return studentPracticeMapper.selectAllCompletedHistory(studentId);
+    }
+    
+    @Override
+    public Map<String, Object> getPracticeHistoryPage(Long studentId, Integer pageSize, String cursor) {
+        int size = pageSize == null || pageSize <= 0 ? PracticeConstants.DEFAULT_HISTORY_PAGE_SIZE
+            : Math.min(pageSize, PracticeConstants.MAX_HISTORY_PAGE_SIZE);
+        
+        // 游标格式：上一页最后一条的 完成时间_记录ID
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                int separator = cursor.lastIndexOf('_');
+                cursorTime = LocalDateTime.parse(cursor.substring(0, separator));
+                cursorId = Long.valueOf(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new PracticeException(PracticeConstants.ERROR_INVALID_CURSOR, e);
             }
         }
         
-        return history;
+        // 多取一条用于判断是否还有下一页
+        List<Map<String, Object>> records = studentPracticeMapper.selectCompletedHistory(studentId, cursorTime, cursorId, size + 1);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, size));
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Map<String, Object> last = records.get(records.size() - 1);
+            nextCursor = toLocalDateTime(last.get("completedTime")) + "_" + last.get("id");
+        }
+        
+        Map<String, Object> page = new HashMap<>();
+        page.put("records", records);
+        page.put("pageSize", size);
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", nextCursor);
+        return page;
+    }
+    
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
     }
     
     @Override
@@ -207,6 +245,8 @@ public class PracticeServiceImpl implements PracticeService {
         studentPracticeMapper.insert(studentPractice);
         System.out.println("✅ StudentPractice记录创建成功");
         
+        eventPublisher.publishEvent(new PracticeStartedEvent(studentId, practiceId, studentPractice.getStartTime()));
+        
         Map<String, Object> result = new HashMap<>();
         result.put("practiceId", practiceId);
         result.put("studentId", studentId);
@@ -241,6 +281,12 @@ public class PracticeServiceImpl implements PracticeService {
         System.out.println("========================================");
         System.out.println("📝 开始处理答题记录，共 " + answers.size() + " 道题");
         
+        // 一次取出本次提交涉及的全部题目，判分只读内存
+        List<Long> questionIds = answers.stream()
+            .map(answerData -> Long.valueOf(answerData.get("questionId").toString()))
+            .collect(Collectors.toList());
+        Map<Long, Question> questionMap = questionCache.getByIds(questionIds);
+        
         for (Map<String, Object> answerData : answers) {
             Long questionId = Long.valueOf(answerData.get("questionId").toString());
             String studentAnswerText = answerData.get("answer") != null ? answerData.get("answer").toString() : "";
@@ -248,7 +294,7 @@ public class PracticeServiceImpl implements PracticeService {
             System.out.println("处理题目 ID=" + questionId + ", 学生答案=" + studentAnswerText);
             
             // 获取题目信息
-            Question question = questionMapper.selectById(questionId);
+            Question question = questionMap.get(questionId);
             if (question == null) {
                 System.out.println("⚠️ 题目不存在，跳过: questionId=" + questionId);
                 continue;
@@ -287,6 +333,8 @@ public class PracticeServiceImpl implements PracticeService {
         if (!studentAnswers.isEmpty()) {
             try {
                 studentAnswerMapper.batchInsert(studentAnswers);
+                // 同一事务内累加错题聚合，错题分析不再扫描全部答题记录
+                studentErrorAggregateMapper.upsertAnswers(studentId, studentAnswers);
                 System.out.println("✅ 成功插入 " + studentAnswers.size() + " 条答题记录");
             } catch (Exception e) {
                 System.err.println("❌ 批量插入答题记录失败: " + e.getMessage());
@@ -323,6 +371,10 @@ public class PracticeServiceImpl implements PracticeService {
         studentExam.setUpdateTime(LocalDateTime.now());
         studentExamMapper.update(studentExam);
         
+        eventPublisher.publishEvent(new PracticeSubmittedEvent(studentId, practiceId, totalScore,
+            studentPractice.getTotalScore() != null ? studentPractice.getTotalScore() : PracticeConstants.DEFAULT_TOTAL_SCORE,
+            accuracy, studentPractice.getCompleteTime()));
+        
         Map<String, Object> result = new HashMap<>();
         result.put("practiceId", practiceId);
         result.put("studentId", studentId);
@@ -1,23 +1,44 @@
 package com.experiment.service.Impl;
 
+import com.experiment.config.QuestionBankProperties;
 import com.experiment.mapper.QuestionBankMapper;
 import com.experiment.pojo.Question;
 import com.experiment.pojo.QuestionBank;
 import com.experiment.pojo.QuestionOption;
+import com.experiment.service.AIJobService;
 import com.experiment.service.AIService;
 import com.experiment.service.KnowledgeBaseService;
 import com.experiment.service.QuestionGenerationService;
+import com.experiment.utils.MinHash;
+import com.experiment.utils.MinHashIndex;
+import com.experiment.utils.PromptBudgeter;
+import com.experiment.utils.QuestionBankDuplicateIndex;
+import com.experiment.utils.QuestionBankUseCounter;
+import com.experiment.utils.TokenEstimator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 智能出题服务实现类（AI+知识库方案）
@@ -28,27 +49,99 @@ import java.util.List;
  * 2. 知识库更新立即生效
  * 3. 题目多样性高
  * 4. 架构简单
+ * 
+ * 题库优先：题库中题目足够时直接返回，不等待大模型；被请求过的题目池由后台线程在低峰时段、
+ * 按每日token预算用AI补充到目标深度
  */
 @Slf4j
 @Service
 public class QuestionGenerationServiceImpl implements QuestionGenerationService {
     
+    /**
+     * 提示词预算的接口标识
+     */
+    private static final String PROMPT_QUESTION_GENERATION = "question-generation";
+    
+    /**
+     * 记录出题需求的题目池上限，避免任意参数组合无限增长
+     */
+    private static final int MAX_DEMANDED_POOLS = 500;
+    
     @Autowired(required = false)
     private QuestionBankMapper questionBankMapper;
     
     @Autowired
     private AIService aiService;
     
+    @Autowired
+    private AIJobService aiJobService;
+    
     @Autowired
     private KnowledgeBaseService knowledgeBaseService;
     
+    @Autowired
+    private PromptBudgeter promptBudgeter;
+    
+    @Autowired
+    private QuestionBankProperties questionBankProperties;
+    
+    @Autowired
+    private QuestionBankUseCounter questionBankUseCounter;
+    
+    @Autowired
+    private QuestionBankDuplicateIndex questionBankDuplicateIndex;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    /**
+     * 有过出题请求的题目池，后台只为这些池补题
+     */
+    private final Map<String, QuestionPool> demandedPools = new ConcurrentHashMap<>();
+    
+    /**
+     * 后台补题当天已消耗的token数
+     */
+    private final AtomicLong replenishTokensUsed = new AtomicLong();
+    private volatile LocalDate replenishBudgetDate = LocalDate.now();
+    
+    private ScheduledExecutorService replenisher;
+    
+    @PostConstruct
+    public void init() {
+        if (!questionBankProperties.isReplenishEnabled() || questionBankMapper == null) {
+            return;
+        }
+        replenisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "question-bank-replenisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = questionBankProperties.getCheckIntervalMinutes();
+        replenisher.scheduleWithFixedDelay(this::replenishIfOffPeak, interval, interval, TimeUnit.MINUTES);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (replenisher != null) {
+            replenisher.shutdownNow();
+        }
+    }
+    
     @Override
     public List<Question> generateQuestions(String subject, String knowledgePoint, 
                                            String type, String difficulty, Integer count) {
         log.info("🎯 开始智能出题：subject={}, knowledgePoint={}, type={}, difficulty={}, count={}", 
                  subject, knowledgePoint, type, difficulty, count);
+        recordDemand(subject, knowledgePoint, type, difficulty);
+        
+        // 题库优先：题目足够时直接返回，不等待大模型；题库不足的池由后台在低峰时段补充
+        if (questionBankProperties.isBankFirst() && hasEnoughQuestions(subject, knowledgePoint, type, difficulty, count)) {
+            List<Question> bankQuestions = getQuestionsFromBank(subject, knowledgePoint, type, difficulty, count);
+            if (bankQuestions.size() >= count) {
+                log.info("✅ 题库题目充足，直接从题库获取{}道题目", bankQuestions.size());
+                return bankQuestions;
+            }
+        }
         
         // 方案1：直接使用AI+知识库（推荐，无需本地缓存）
         log.info("📚 使用AI+知识库方案（知识库内容直接注入大模型）");
@@ -86,7 +179,7 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
             return 0;
         }
         
-        return cacheQuestionsToBank(questions, subject, knowledgePoint);
+        return cacheQuestionsToBank(questions, subject, knowledgePoint, difficulty);
     }
     
     @Override
@@ -107,8 +200,8 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
                 Question question = convertToQuestion(bankQuestion);
                 questions.add(question);
                 
-                // 更新使用次数
-                questionBankMapper.incrementUseCount(bankQuestion.getId());
+                // 使用次数先在内存累加，由后台批量写回
+                questionBankUseCounter.increment(bankQuestion.getId());
             }
             
             log.info("从题库获取到{}道题目", questions.size());
@@ -140,14 +233,25 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
      */
     private List<Question> generateQuestionsWithAI(String subject, String knowledgePoint, 
                                                    String type, String difficulty, Integer count) {
+        return generateQuestionsWithAI(subject, knowledgePoint, type, difficulty, count, null);
+    }
+    
+    /**
+     * 使用AI生成题目，并累计本次调用的token消耗（提示词+回复估算）
+     * @param tokenUsage token累计器，不需要统计时为null
+     */
+    private List<Question> generateQuestionsWithAI(String subject, String knowledgePoint, String type,
+                                                   String difficulty, Integer count, LongAdder tokenUsage) {
         try {
             long startTime = System.currentTimeMillis();
             
             // 1. 从知识库获取相关内容（直接读取markdown文件）
             log.info("📖 正在从知识库读取'{}'相关内容...", knowledgePoint);
-            String knowledgeContext = knowledgeBaseService.getKnowledgeContext(knowledgePoint);
+            // 知识库上下文占提示词预算的一半，其余留给出题要求和输出格式说明
+            int contextBudget = promptBudgeter.budgetFor(PROMPT_QUESTION_GENERATION) / 2;
+            String knowledgeContext = knowledgeBaseService.getKnowledgeContext(knowledgePoint, contextBudget);
             
-            log.info("📚 知识库上下文长度: {} 字符", knowledgeContext.length());
+            log.info("📚 知识库上下文长度: {} 字符，约 {} tokens", knowledgeContext.length(), TokenEstimator.estimate(knowledgeContext));
             
             // 2. 构建AI提示词（包含完整知识库内容）
             String systemPrompt = buildSystemPromptWithKnowledge(subject, knowledgePoint, type, difficulty, count, knowledgeContext);
@@ -156,13 +260,20 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
             
             // 3. 调用AI服务（知识库内容已在systemPrompt中）
             log.info("🤖 调用AI生成题目（知识库已注入提示词）...");
-            String aiResponse = aiService.chatWithSystem(systemPrompt, userMessage);
+            int promptTokens = promptBudgeter.record(PROMPT_QUESTION_GENERATION, systemPrompt, userMessage);
+            log.info("🤖 提示词约 {} tokens", promptTokens);
+            // 组卷出题和题库补充共用全局大模型调用限流
+            aiJobService.acquireCallPermit();
+            String aiResponse = aiService.chatWithSystem(systemPrompt, userMessage, true);
+            if (tokenUsage != null) {
+                tokenUsage.add(promptTokens + TokenEstimator.estimate(aiResponse));
+            }
             
             long duration = System.currentTimeMillis() - startTime;
             log.info("⏱️ AI响应耗时: {}ms", duration);
             
             // 4. 解析AI返回的JSON
-            List<Question> questions = parseAIResponse(aiResponse, type);
+            List<Question> questions = removeNearDuplicates(parseAIResponse(aiResponse, type));
             
             if (!questions.isEmpty()) {
                 log.info("✅ 成功解析{}道题目", questions.size());
@@ -170,6 +281,11 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
             
             return questions;
             
+        } catch (InterruptedException e) {
+            // 等待限流许可时被取消（如组卷超时）
+            Thread.currentThread().interrupt();
+            log.warn("AI生成题目被取消: {}", knowledgePoint);
+            return new ArrayList<>();
         } catch (Exception e) {
             log.error("❌ AI生成题目失败", e);
             return new ArrayList<>();
@@ -308,7 +424,7 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
     /**
      * 将题目缓存到题库（可选功能，用于离线场景）
      */
-    private int cacheQuestionsToBank(List<Question> questions, String subject, String knowledgePoint) {
+    private int cacheQuestionsToBank(List<Question> questions, String subject, String knowledgePoint, String difficulty) {
         if (questionBankMapper == null) {
             log.info("题库功能未启用，跳过缓存");
             return 0;
@@ -316,13 +432,23 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
         
         try {
             List<QuestionBank> bankQuestions = new ArrayList<>();
+            MinHashIndex batchIndex = new MinHashIndex();
+            int skipped = 0;
             
             for (Question question : questions) {
+                // 与题库及本批已收下的题目近似重复的不再入库
+                int[] signature = signatureOf(question);
+                if (signature != null && (questionBankDuplicateIndex.isDuplicate(signature)
+                        || !batchIndex.addIfAbsent(signature, questionBankProperties.getDuplicateThreshold()))) {
+                    skipped++;
+                    continue;
+                }
+                
                 QuestionBank bankQuestion = new QuestionBank();
                 bankQuestion.setSubject(subject);
                 bankQuestion.setKnowledgePoint(knowledgePoint);
                 bankQuestion.setType(question.getType());
-                bankQuestion.setDifficulty(question.getDifficulty());
+                bankQuestion.setDifficulty(question.getDifficulty() != null ? question.getDifficulty() : difficulty);
                 bankQuestion.setContent(question.getContent());
                 bankQuestion.setAnswer(question.getAnswer());
                 bankQuestion.setAnalysis(question.getAnalysis());
@@ -330,6 +456,7 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
                 bankQuestion.setSource("ai_generated");
                 bankQuestion.setUseCount(0);
                 bankQuestion.setAvgScore(0.0);
+                bankQuestion.setMinhash(signature != null ? MinHash.encode(signature) : null);
                 bankQuestion.setCreateTime(LocalDateTime.now());
                 bankQuestion.setUpdateTime(LocalDateTime.now());
                 
@@ -346,6 +473,9 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
                 bankQuestions.add(bankQuestion);
             }
             
+            if (skipped > 0) {
+                log.info("跳过{}道与题库近似重复的题目", skipped);
+            }
             if (!bankQuestions.isEmpty()) {
                 int count = questionBankMapper.batchInsert(bankQuestions);
                 log.info("✅ 成功缓存{}道题目到题库", count);
@@ -358,6 +488,130 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
         return 0;
     }
     
+    /**
+     * 去掉同一次生成结果中的近似重复题目
+     */
+    private List<Question> removeNearDuplicates(List<Question> questions) {
+        MinHashIndex index = new MinHashIndex();
+        List<Question> distinct = new ArrayList<>();
+        for (Question question : questions) {
+            int[] signature = signatureOf(question);
+            if (signature == null || index.addIfAbsent(signature, questionBankProperties.getDuplicateThreshold())) {
+                distinct.add(question);
+            }
+        }
+        if (distinct.size() < questions.size()) {
+            log.info("去掉{}道近似重复的生成题目", questions.size() - distinct.size());
+        }
+        return distinct;
+    }
+    
+    private int[] signatureOf(Question question) {
+        List<String> optionTexts = new ArrayList<>();
+        if (question.getOptions() != null) {
+            for (QuestionOption option : question.getOptions()) {
+                optionTexts.add(option.getContent());
+            }
+        }
+        return MinHash.signature(question.getContent(), optionTexts);
+    }
+    
+    /**
+     * 记录出题需求，后台补题只覆盖实际被请求过的题目池
+     */
+    private void recordDemand(String subject, String knowledgePoint, String type, String difficulty) {
+        if (subject == null || knowledgePoint == null || type == null || difficulty == null) {
+            return;
+        }
+        QuestionPool pool = new QuestionPool(subject, knowledgePoint, type, difficulty);
+        if (demandedPools.size() < MAX_DEMANDED_POOLS || demandedPools.containsKey(pool.key())) {
+            demandedPools.putIfAbsent(pool.key(), pool);
+        }
+    }
+    
+    /**
+     * 低峰时段内把有需求的题目池补到目标深度，缺口大的池优先，当天token预算用完即停止
+     */
+    private void replenishIfOffPeak() {
+        try {
+            if (demandedPools.isEmpty() || !isOffPeak(LocalTime.now())) {
+                return;
+            }
+            LocalDate today = LocalDate.now();
+            if (!today.equals(replenishBudgetDate)) {
+                replenishBudgetDate = today;
+                replenishTokensUsed.set(0);
+            }
+            
+            Map<String, Integer> depths = new HashMap<>();
+            for (Map<String, Object> row : questionBankMapper.selectPoolDepths(questionBankProperties.getFreshUseCount())) {
+                QuestionPool pool = new QuestionPool((String) row.get("subject"), (String) row.get("knowledgePoint"),
+                        (String) row.get("type"), (String) row.get("difficulty"));
+                depths.put(pool.key(), row.get("depth") != null ? ((Number) row.get("depth")).intValue() : 0);
+            }
+            
+            int targetDepth = questionBankProperties.getTargetDepth();
+            List<QuestionPool> pools = new ArrayList<>(demandedPools.values());
+            pools.removeIf(pool -> depths.getOrDefault(pool.key(), 0) >= targetDepth);
+            pools.sort(Comparator.comparingInt(pool -> depths.getOrDefault(pool.key(), 0)));
+            
+            for (QuestionPool pool : pools) {
+                if (!replenishPool(pool, targetDepth - depths.getOrDefault(pool.key(), 0))) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("后台补题失败", e);
+        }
+    }
+    
+    /**
+     * 分批为一个题目池补题
+     * @return 是否可以继续补下一个池（超出低峰时段或token预算不足时返回false）
+     */
+    private boolean replenishPool(QuestionPool pool, int deficit) {
+        // 按提示词预算预估一次调用的消耗，剩余预算不足时不再发起调用
+        long estimatedCallTokens = promptBudgeter.budgetFor(PROMPT_QUESTION_GENERATION);
+        while (deficit > 0) {
+            if (!isOffPeak(LocalTime.now())) {
+                log.info("已离开低峰时段，暂停后台补题");
+                return false;
+            }
+            if (replenishTokensUsed.get() + estimatedCallTokens > questionBankProperties.getDailyTokenBudget()) {
+                log.info("后台补题今日token预算已用完: 已用{}，预算{}",
+                        replenishTokensUsed.get(), questionBankProperties.getDailyTokenBudget());
+                return false;
+            }
+            
+            int batch = Math.min(Math.max(1, questionBankProperties.getReplenishBatchSize()), deficit);
+            LongAdder tokenUsage = new LongAdder();
+            List<Question> questions = generateQuestionsWithAI(pool.subject, pool.knowledgePoint, pool.type,
+                    pool.difficulty, batch, tokenUsage);
+            replenishTokensUsed.addAndGet(tokenUsage.sum());
+            if (questions.isEmpty()) {
+                log.warn("题目池 {} 补题失败，跳过", pool.key());
+                return true;
+            }
+            int cached = cacheQuestionsToBank(questions, pool.subject, pool.knowledgePoint, pool.difficulty);
+            log.info("题目池 {} 补充{}道题目，今日已用token {}", pool.key(), cached, replenishTokensUsed.get());
+            if (cached == 0) {
+                return true;
+            }
+            deficit -= cached;
+        }
+        return true;
+    }
+    
+    /**
+     * 是否处于低峰时段，结束小时小于开始小时表示跨零点
+     */
+    private boolean isOffPeak(LocalTime now) {
+        int hour = now.getHour();
+        int start = questionBankProperties.getOffPeakStartHour();
+        int end = questionBankProperties.getOffPeakEndHour();
+        return start <= end ? hour >= start && hour < end : hour >= start || hour < end;
+    }
+    
     /**
      * 将题库题目转换为Question对象
      */
@@ -405,4 +659,25 @@ public class QuestionGenerationServiceImpl implements QuestionGenerationService
             default: return "中等";
         }
     }
+    
+    /**
+     * 题目池：学科、知识点、题型、难度相同的一组题目
+     */
+    private static class QuestionPool {
+        private final String subject;
+        private final String knowledgePoint;
+        private final String type;
+        private final String difficulty;
+        
+        QuestionPool(String subject, String knowledgePoint, String type, String difficulty) {
+            this.subject = subject;
+            this.knowledgePoint = knowledgePoint;
+            this.type = type;
+            this.difficulty = difficulty;
+        }
+        
+        String key() {
+            return subject + "/" + knowledgePoint + "/" + type + "/" + difficulty;
+        }
+    }
 }
@@ -16,7 +16,10 @@ import com.experiment.mapper.UserMapper;
 import com.experiment.pojo.StudentStatsDTO;
 import com.experiment.pojo.SystemStatsDTO;
 import com.experiment.pojo.TeacherStatsDTO;
+import com.experiment.pojo.TeacherStatsSnapshot;
+import com.experiment.service.LearningAnalyticsService;
 import com.experiment.service.StatsService;
+import com.experiment.utils.TeacherStatsSnapshotCache;
 
 @Service
 public class StatsServiceImpl implements StatsService {
@@ -33,30 +36,24 @@ public class StatsServiceImpl implements StatsService {
     @Autowired
     private StudentProgressMapper studentProgressMapper;
     
+    @Autowired
+    private TeacherStatsSnapshotCache teacherStatsSnapshotCache;
+    
+    @Autowired
+    private LearningAnalyticsService learningAnalyticsService;
+    
     @Override
     public TeacherStatsDTO getTeacherStats(Long teacherId) {
         TeacherStatsDTO stats = new TeacherStatsDTO();
         
         try {
-            // 获取教师的课程数量
-            Integer courseCount = courseMapper.countByTeacherId(teacherId);
-            stats.setTotalCourses(courseCount != null ? courseCount : 0);
-            
-            // 获取选择该教师课程的学生总数
-            Integer studentCount = courseMapper.countStudentsByTeacherId(teacherId);
-            stats.setTotalStudents(studentCount != null ? studentCount : 0);
-            
-            // 获取该教师课程的平均分
-            Double avgScore = studentExamMapper.selectAverageScoreByTeacher(teacherId);
-            stats.setAvgScore(avgScore != null ? avgScore : 0.0);
-            
-            // 获取该教师的考试数量
-            Integer examCount = studentExamMapper.countExamsByTeacher(teacherId);
-            stats.setCompletedExams(examCount != null ? examCount : 0);
-            
-            // 计算教学时长（基于学生学习时长的总和）
-            Integer totalStudyMinutes = studentProgressMapper.selectTotalStudyTimeByTeacher(teacherId);
-            stats.setTeachingHours(totalStudyMinutes != null ? totalStudyMinutes / 60 : 0);
+            // 课程数、学生数、平均分、考试数、学习时长均取自统计快照，不再逐项查库
+            TeacherStatsSnapshot snapshot = teacherStatsSnapshotCache.get(teacherId);
+            stats.setTotalCourses(valueOf(snapshot.getCourseCount()));
+            stats.setTotalStudents(valueOf(snapshot.getStudentCount()));
+            stats.setAvgScore(snapshot.getAverageScore() != null ? snapshot.getAverageScore() : 0.0);
+            stats.setCompletedExams(valueOf(snapshot.getExamCount()));
+            stats.setTeachingHours(valueOf(snapshot.getTotalStudyMinutes()) / 60);
             
             // 模拟一些暂时无法从数据库获取的数据
             stats.setPendingExams(3);
@@ -83,34 +80,20 @@ public class StatsServiceImpl implements StatsService {
         Map<String, Object> classStats = new HashMap<>();
         
         try {
-            // 获取班级整体统计
-            Map<String, Object> stats = studentExamMapper.selectClassStats(teacherId);
-            System.out.println("班级整体统计查询结果: " + stats);
-            Number averageScoreNum = stats != null ? (Number) stats.get("averageScore") : null;
-            Double averageScore = averageScoreNum != null ? averageScoreNum.doubleValue() : 0.0;
-            
-            // 获取及格率
-            Number passRateNum = studentExamMapper.selectPassRate(teacherId);
-            System.out.println("及格率查询结果: " + passRateNum);
-            Double passRate = passRateNum != null ? passRateNum.doubleValue() : 0.0;
-            
-            // 获取优秀率
-            Number excellentRateNum = studentExamMapper.selectExcellentRate(teacherId);
-            System.out.println("优秀率查询结果: " + excellentRateNum);
-            Double excellentRate = excellentRateNum != null ? excellentRateNum.doubleValue() : 0.0;
-            
-            // 获取参与率
-            Number participationRateNum = studentExamMapper.selectParticipationRate(teacherId);
-            System.out.println("参与率查询结果: " + participationRateNum);
-            Double participationRate = participationRateNum != null ? participationRateNum.doubleValue() : 0.0;
+            TeacherStatsSnapshot snapshot = teacherStatsSnapshotCache.get(teacherId);
+            int scoredCount = valueOf(snapshot.getScoredCount());
+            int progressStudents = valueOf(snapshot.getProgressStudents());
+            
+            Double averageScore = snapshot.getAverageScore() != null ? snapshot.getAverageScore() : 0.0;
+            Double passRate = percent(valueOf(snapshot.getPassCount()), scoredCount);
+            Double excellentRate = percent(valueOf(snapshot.getExcellentCount()), scoredCount);
+            Double participationRate = percent(valueOf(snapshot.getParticipatedStudents()), progressStudents);
             
             classStats.put("averageScore", Math.round(averageScore * 10.0) / 10.0);
             classStats.put("passRate", Math.round(passRate * 10.0) / 10.0);
             classStats.put("excellentRate", Math.round(excellentRate * 10.0) / 10.0);
             classStats.put("participationRate", Math.round(participationRate * 10.0) / 10.0);
             
-            System.out.println("最终班级统计结果: " + classStats);
-            
         } catch (Exception e) {
             System.err.println("获取教师班级统计失败: " + e.getMessage());
             e.printStackTrace();
@@ -124,6 +107,14 @@ public class StatsServiceImpl implements StatsService {
         return classStats;
     }
     
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+    
+    private static double percent(int count, int total) {
+        return total == 0 ? 0.0 : count * 100.0 / total;
+    }
+    
     @Override
     public StudentStatsDTO getStudentStats(Long studentId) {
         StudentStatsDTO stats = new StudentStatsDTO();
@@ -132,16 +123,16 @@ public class StatsServiceImpl implements StatsService {
         Integer studyTime = studentProgressMapper.selectTotalStudyTime(studentId);
         stats.setTotalStudyTime(studyTime != null ? studyTime / 60.0 : 45.5);
         
-        // 获取学生平均分
-        Double avgScore = studentExamMapper.selectAverageScoreByStudent(studentId);
-        stats.setAvgScore(avgScore != null ? avgScore : 87.3);
+        // 平均分、连续学习天数、练习完成情况取自事件维护的学习计数器
+        Map<String, Object> activity = learningAnalyticsService.getStudentActivity(studentId);
+        stats.setAvgScore((Double) activity.get("avgScore"));
+        stats.setStreakDays((Integer) activity.get("streakDays"));
+        stats.setTotalExams(((Long) activity.get("startedPractices")).intValue());
+        stats.setCompletedExams(((Long) activity.get("completedPractices")).intValue());
+        stats.setCompletionRate((Double) activity.get("completionRate"));
         
         // 模拟其他数据
         stats.setCompletedCourses(8);
-        stats.setStreakDays(12);
-        stats.setTotalExams(20);
-        stats.setCompletedExams(18);
-        stats.setCompletionRate(90.0);
         stats.setRank(5);
         
         return stats;
@@ -167,10 +158,13 @@ public class StatsServiceImpl implements StatsService {
             Integer courseCount = courseMapper.countByCondition(null);
             stats.setTotalCourses(courseCount != null ? courseCount : 0);
             
+            // 活跃用户取自登录与学习事件的计数器
+            Map<String, Integer> activeUsers = learningAnalyticsService.getActiveUsers();
+            stats.setTodayActiveUsers(activeUsers.get("today"));
+            stats.setWeekActiveUsers(activeUsers.get("week"));
+            stats.setMonthActiveUsers(activeUsers.get("month"));
+            
             // 模拟一些无法直接从数据库获取的数据
-            stats.setTodayActiveUsers(Math.min(342, stats.getTotalUsers()));
-            stats.setWeekActiveUsers(Math.min(892, stats.getTotalUsers()));
-            stats.setMonthActiveUsers(Math.min(1156, stats.getTotalUsers()));
             stats.setEfficiencyIndex(87.5);
             stats.setLearningEffectScore(92.3);
             stats.setCourseCompletionRate(85.7);
@@ -199,20 +193,18 @@ public class StatsServiceImpl implements StatsService {
         Map<String, Double> distribution = new HashMap<>();
         
         try {
-            // 从数据库获取成绩分布统计
-            Map<String, Object> gradeStats = studentExamMapper.selectGradeDistribution();
+            // 成绩分布取自提交事件维护的分数段计数，不再扫描student_exam
+            Map<String, Long> gradeStats = learningAnalyticsService.getScoreHistogram();
             if (gradeStats != null && gradeStats.get("total") != null) {
-                // 安全地获取总数，可能是Long或Integer
-                Number totalNum = (Number) gradeStats.get("total");
-                long total = totalNum.longValue();
+                long total = gradeStats.get("total");
                 
                 if (total > 0) {
                     // 安全地获取各分数段数量并计算百分比
-                    Number excellentNum = (Number) gradeStats.getOrDefault("excellent", 0);
-                    Number goodNum = (Number) gradeStats.getOrDefault("good", 0);
-                    Number averageNum = (Number) gradeStats.getOrDefault("average", 0);
-                    Number belowNum = (Number) gradeStats.getOrDefault("below", 0);
-                    Number poorNum = (Number) gradeStats.getOrDefault("poor", 0);
+                    Number excellentNum = gradeStats.getOrDefault("excellent", 0L);
+                    Number goodNum = gradeStats.getOrDefault("good", 0L);
+                    Number averageNum = gradeStats.getOrDefault("average", 0L);
+                    Number belowNum = gradeStats.getOrDefault("below", 0L);
+                    Number poorNum = gradeStats.getOrDefault("poor", 0L);
                     
                     distribution.put("excellent", excellentNum.longValue() * 100.0 / total);
                     distribution.put("good", goodNum.longValue() * 100.0 / total);
@@ -346,19 +338,16 @@ public class StatsServiceImpl implements StatsService {
         
         try {
             // 获取真实用户统计数据
-            Integer totalUsers = userMapper.countByCondition(null);
             Integer totalTeachers = userMapper.countByRole("teacher");
             Integer totalStudents = userMapper.countByRole("student");
             
-            // 基于真实数据估算活跃用户（可以根据实际业务逻辑调整）
-            int todayActive = Math.min(totalUsers != null ? totalUsers / 4 : 50, totalUsers != null ? totalUsers : 200);
-            int weekActive = Math.min(totalUsers != null ? (int)(totalUsers * 0.7) : 80, totalUsers != null ? totalUsers : 200);
-            int monthActive = Math.min(totalUsers != null ? (int)(totalUsers * 0.9) : 100, totalUsers != null ? totalUsers : 200);
+            // 活跃用户与登录次数取自登录与学习事件的计数器
+            Map<String, Integer> activeUsers = learningAnalyticsService.getActiveUsers();
             
-            stats.put("todayActive", todayActive);
-            stats.put("weekActive", weekActive);
-            stats.put("monthActive", monthActive);
-            stats.put("totalSessions", weekActive * 3); // 估算
+            stats.put("todayActive", activeUsers.get("today"));
+            stats.put("weekActive", activeUsers.get("week"));
+            stats.put("monthActive", activeUsers.get("month"));
+            stats.put("totalSessions", learningAnalyticsService.getWeeklyLogins()); // 近7天登录次数
             stats.put("avgSessionDuration", 35.2); // 分钟，模拟数据
             stats.put("peakUsageTime", "14:00-16:00");
             stats.put("mostActiveDay", "周三");
@@ -8,10 +8,12 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.experiment.event.UserLoginEvent;
 import com.experiment.mapper.UserMapper;
 import com.experiment.pojo.User;
 import com.experiment.pojo.UserChangePwdDTO;
@@ -33,6 +35,8 @@ public class UserServiceImpl implements UserService {
     private UserMapper userMapper;
     @Autowired
     private AliOssUtil aliOssUtil;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * 登录
@@ -67,6 +71,7 @@ public class UserServiceImpl implements UserService {
         // 更新最后登录时间
         userMapper.updateLastLogin(user.getId());
         user.setLastLogin(LocalDateTime.now());
+        eventPublisher.publishEvent(new UserLoginEvent(user.getId(), user.getRole(), user.getLastLogin()));
 
         // 构造token和返回结构
         Map<String, Object> data = new HashMap<>();
@@ -3,6 +3,8 @@ package com.experiment.service;
 import java.util.List;
 import java.util.Map;
 
+import com.experiment.pojo.KnowledgeChunk;
+
 /**
  * 知识库服务接口
  */
@@ -40,4 +42,24 @@ public interface KnowledgeBaseService {
      * @return 知识库上下文
      */
     String getKnowledgeContext(String query);
-} 
\ No newline at end of file
+    
+    /**
+     * 获取知识库上下文，按相关度选取片段，总长度不超过给定的token预算
+     * @param query 查询内容
+     * @param tokenBudget token预算
+     * @return 知识库上下文
+     */
+    String getKnowledgeContext(String query, int tokenBudget);
+    
+    /**
+     * 获取当前全部知识库段落
+     * @return 段落列表快照
+     */
+    List<KnowledgeChunk> getAllChunks();
+    
+    /**
+     * 获取索引版本号，知识库文件变化导致索引重建后递增
+     * @return 版本号
+     */
+    long getIndexVersion();
+}
@@ -0,0 +1,31 @@
+package com.experiment.service;
+
+import java.util.Map;
+
+/**
+ * 统一检索服务接口
+ * 对知识库、已发布的课堂总结和课程资源建立常驻内存的索引，支持分页、高亮和相关度排序
+ */
+public interface KnowledgeSearchService {
+
+    /**
+     * 检索
+     * @param keyword 关键词
+     * @param type 来源类型，为空时检索全部来源
+     * @param page 页码（从1开始）
+     * @param pageSize 每页条数
+     * @return 检索结果（results、total、page、pageSize、tookMs）
+     */
+    Map<String, Object> search(String keyword, String type, int page, int pageSize);
+
+    /**
+     * 标记索引需要重建，在下一次检查时异步重建（课堂总结、课程资源的写操作会自动触发）
+     */
+    void markDirty();
+
+    /**
+     * 获取索引状态
+     * @return 文档数、词项数、最近重建时间等
+     */
+    Map<String, Object> getIndexStats();
+}
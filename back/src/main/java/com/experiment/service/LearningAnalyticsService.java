@@ -0,0 +1,40 @@
+package com.experiment.service;
+
+import java.util.Map;
+
+/**
+ * 学习统计服务接口
+ * 订阅登录、开始练习、提交练习等事件，在内存中增量维护活跃用户、连续学习天数、完成率和成绩分布，
+ * 定期写入数据库检查点，统计接口直接读取计数器而不再扫描明细表
+ */
+public interface LearningAnalyticsService {
+
+    /**
+     * 活跃用户数（基于HyperLogLog的估算值，误差约2%）
+     * @return today、week（近7天）、month（近30天）
+     */
+    Map<String, Integer> getActiveUsers();
+
+    /**
+     * 近7天登录次数
+     */
+    long getWeeklyLogins();
+
+    /**
+     * 学生学习情况
+     * @param studentId 学生ID
+     * @return streakDays、startedPractices、completedPractices、completionRate、avgScore
+     */
+    Map<String, Object> getStudentActivity(Long studentId);
+
+    /**
+     * 成绩分布（各分数段人次）
+     * @return excellent、good、average、below、poor、total
+     */
+    Map<String, Long> getScoreHistogram();
+
+    /**
+     * 立即把内存计数器写入数据库检查点
+     */
+    void checkpoint();
+}
@@ -15,9 +15,12 @@ public interface PracticeService {
     // 获取推荐练习
     List<Map<String, Object>> getRecommendedPractices();
     
-    // 获取练习历史
+    // 获取练习历史（全部已完成记录）
     List<Map<String, Object>> getPracticeHistory(Long studentId);
     
+    // 游标分页获取练习历史，返回 records、nextCursor、hasMore（按完成时间分页，不含完成时间为空的记录）
+    Map<String, Object> getPracticeHistoryPage(Long studentId, Integer pageSize, String cursor);
+    
     // 开始练习
     Map<String, Object> startPractice(Long practiceId, Long studentId);
     
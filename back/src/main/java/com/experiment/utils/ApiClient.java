@@ -10,15 +10,19 @@ import java.util.concurrent.TimeUnit;
 public class ApiClient {
 
     private static final String MEDIA_TYPE_JSON = "application/json; charset=utf-8";
-    private final static OkHttpClient client = new OkHttpClient().newBuilder()
-            .connectionPool(new ConnectionPool(100, 5, TimeUnit.MINUTES))
-            .readTimeout(60 * 10, TimeUnit.SECONDS)
-            .build();
     private static final String ERROR_MESSAGE = "Unexpected code: ";
     private final String baseUrl;
+    private final OkHttpClient client;
 
-    public ApiClient(String baseUrl) {
+    /**
+     * @param baseUrl 接口基础地址
+     * @param sharedClient 共享的HTTP客户端，复用其连接池和调度器，仅放宽读取超时（PPT生成较慢）
+     */
+    public ApiClient(String baseUrl, OkHttpClient sharedClient) {
         this.baseUrl = baseUrl;
+        this.client = sharedClient.newBuilder()
+                .readTimeout(60 * 10, TimeUnit.SECONDS)
+                .build();
     }
 
     public String getTemplateList(String appId, String timestamp, String signature) throws IOException {
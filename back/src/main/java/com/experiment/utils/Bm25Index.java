@@ -0,0 +1,227 @@
+package com.experiment.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 基于BM25排序的内存倒排索引
+ * 构建后不可变，可在多线程间安全共享；文档变化时重新构建并整体替换引用
+ *
+ * @param <D> 文档类型
+ */
+public class Bm25Index<D> {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final List<D> documents;
+    private final int[] docLengths;
+    private final double avgDocLength;
+    private final Map<String, Posting> postings;
+
+    private Bm25Index(List<D> documents, int[] docLengths, Map<String, Posting> postings) {
+        this.documents = documents;
+        this.docLengths = docLengths;
+        this.postings = postings;
+        long total = 0;
+        for (int length : docLengths) {
+            total += length;
+        }
+        this.avgDocLength = docLengths.length > 0 ? (double) total / docLengths.length : 0;
+    }
+
+    /**
+     * 构建索引
+     * @param documents 文档列表
+     * @param tokenizer 文档分词函数
+     */
+    public static <D> Bm25Index<D> build(List<D> documents, Function<D, List<String>> tokenizer) {
+        List<D> docs = Collections.unmodifiableList(new ArrayList<>(documents));
+        int[] docLengths = new int[docs.size()];
+        Map<String, PostingBuilder> builders = new HashMap<>();
+
+        for (int docId = 0; docId < docs.size(); docId++) {
+            List<String> tokens = tokenizer.apply(docs.get(docId));
+            docLengths[docId] = tokens.size();
+
+            Map<String, Integer> termFreqs = new HashMap<>();
+            for (String token : tokens) {
+                termFreqs.merge(token, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+                builders.computeIfAbsent(entry.getKey(), k -> new PostingBuilder()).add(docId, entry.getValue());
+            }
+        }
+
+        Map<String, Posting> postings = new HashMap<>(builders.size() * 2);
+        builders.forEach((term, builder) -> postings.put(term, builder.build()));
+        return new Bm25Index<>(docs, docLengths, postings);
+    }
+
+    /**
+     * 空索引
+     */
+    public static <D> Bm25Index<D> empty() {
+        return new Bm25Index<>(Collections.emptyList(), new int[0], Collections.emptyMap());
+    }
+
+    /**
+     * 检索
+     * @param queryTokens 查询词项
+     * @param topK 最多返回条数
+     * @return 按得分从高到低排序的命中结果
+     */
+    public List<Hit<D>> search(List<String> queryTokens, int topK) {
+        return search(queryTokens, topK, null).getHits();
+    }
+
+    /**
+     * 带过滤条件的检索，同时统计命中总数（用于分页）
+     * @param queryTokens 查询词项
+     * @param topK 最多返回条数
+     * @param filter 文档过滤条件，为null时不过滤
+     * @return 前topK条命中结果及命中总数
+     */
+    public TopHits<D> search(List<String> queryTokens, int topK, Predicate<D> filter) {
+        if (documents.isEmpty() || queryTokens.isEmpty() || topK <= 0) {
+            return new TopHits<>(Collections.emptyList(), 0);
+        }
+
+        double[] scores = new double[documents.size()];
+        List<Integer> touched = new ArrayList<>();
+        int n = documents.size();
+
+        for (String term : new LinkedHashSet<>(queryTokens)) {
+            Posting posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            int df = posting.docIds.length;
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            for (int p = 0; p < df; p++) {
+                int docId = posting.docIds[p];
+                int tf = posting.termFreqs[p];
+                double norm = K1 * (1 - B + B * docLengths[docId] / avgDocLength);
+                if (scores[docId] == 0) {
+                    touched.add(docId);
+                }
+                scores[docId] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+
+        int total = 0;
+        PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1, (a, b) -> Double.compare(scores[a], scores[b]));
+        for (int docId : touched) {
+            if (filter != null && !filter.test(documents.get(docId))) {
+                continue;
+            }
+            total++;
+            heap.offer(docId);
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+
+        List<Hit<D>> hits = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int docId = heap.poll();
+            hits.add(new Hit<>(documents.get(docId), scores[docId]));
+        }
+        Collections.reverse(hits);
+        return new TopHits<>(hits, total);
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * 词项数量
+     */
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * 检索命中
+     */
+    public static class Hit<D> {
+        private final D document;
+        private final double score;
+
+        Hit(D document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        public D getDocument() {
+            return document;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * 检索结果页
+     */
+    public static class TopHits<D> {
+        private final List<Hit<D>> hits;
+        private final int totalHits;
+
+        TopHits(List<Hit<D>> hits, int totalHits) {
+            this.hits = hits;
+            this.totalHits = totalHits;
+        }
+
+        public List<Hit<D>> getHits() {
+            return hits;
+        }
+
+        public int getTotalHits() {
+            return totalHits;
+        }
+    }
+
+    private static class Posting {
+        private final int[] docIds;
+        private final int[] termFreqs;
+
+        Posting(int[] docIds, int[] termFreqs) {
+            this.docIds = docIds;
+            this.termFreqs = termFreqs;
+        }
+    }
+
+    private static class PostingBuilder {
+        private int[] docIds = new int[4];
+        private int[] termFreqs = new int[4];
+        private int size;
+
+        void add(int docId, int termFreq) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                termFreqs = Arrays.copyOf(termFreqs, size * 2);
+            }
+            docIds[size] = docId;
+            termFreqs[size] = termFreq;
+            size++;
+        }
+
+        Posting build() {
+            return new Posting(Arrays.copyOf(docIds, size), Arrays.copyOf(termFreqs, size));
+        }
+    }
+}
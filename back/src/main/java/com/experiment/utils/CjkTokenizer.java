@@ -0,0 +1,70 @@
+package com.experiment.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 中英文混合分词器
+ * 英文和数字按单词切分并转小写，中文按相邻二字（bigram）切分，单独出现的汉字保留为单字
+ */
+public final class CjkTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "is", "are", "was", "were", "be", "to", "of", "in", "on", "at",
+            "and", "or", "but", "if", "for", "with", "as", "by", "it", "this", "that");
+
+    private CjkTokenizer() {
+    }
+
+    /**
+     * 分词
+     * @param text 原文
+     * @return 词项列表（保留重复，用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    tokens.add(String.valueOf(c));
+                } else {
+                    for (int j = start; j < i - 1; j++) {
+                        tokens.add(text.substring(j, j + 2));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && isWordChar(text.charAt(i))) {
+                    i++;
+                }
+                String word = text.substring(start, i).toLowerCase();
+                if (!STOP_WORDS.contains(word)) {
+                    tokens.add(word);
+                }
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= '一' && c <= '鿿') || (c >= '㐀' && c <= '䶿');
+    }
+
+    private static boolean isWordChar(char c) {
+        return !isCjk(c) && (Character.isLetterOrDigit(c) || c == '_');
+    }
+}
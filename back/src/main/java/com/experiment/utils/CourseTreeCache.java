@@ -0,0 +1,125 @@
+package com.experiment.utils;
+
+import com.experiment.mapper.ChapterMapper;
+import com.experiment.mapper.LessonMapper;
+import com.experiment.pojo.Chapter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 课程章节树缓存（课程ID -> 章节及其课时）
+ * 章节或课时有任何写操作时失效；新增章节、按课程删除章节时只清该课程，其余写操作全部清空
+ */
+@Slf4j
+@Component
+public class CourseTreeCache implements MapperWriteListener {
+
+    private static final int MAX_ENTRIES = 500;
+
+    private final LinkedHashMap<Long, List<Chapter>> trees = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Chapter>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 失效代数，每次失效递增；加载前记录、写入时比对，防止并发加载把失效前的旧数据写回缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 查询缓存，未命中返回null
+     */
+    public List<Chapter> get(Long courseId) {
+        synchronized (trees) {
+            List<Chapter> tree = trees.get(courseId);
+            if (tree != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return tree;
+        }
+    }
+
+    /**
+     * 当前失效代数，应在查询数据库之前获取
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 写入缓存；若加载期间发生过失效则放弃写入
+     */
+    public void put(Long courseId, List<Chapter> tree, long loadedGeneration) {
+        synchronized (trees) {
+            if (generation.get() == loadedGeneration) {
+                trees.put(courseId, tree);
+            }
+        }
+    }
+
+    public void evict(Long courseId) {
+        synchronized (trees) {
+            generation.incrementAndGet();
+            trees.remove(courseId);
+        }
+        evictions.increment();
+    }
+
+    public void evictAll() {
+        synchronized (trees) {
+            generation.incrementAndGet();
+            trees.clear();
+        }
+        evictions.increment();
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(ChapterMapper.class, LessonMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        Long courseId = null;
+        if (parameter instanceof Chapter && statementId.endsWith(".insert")) {
+            courseId = ((Chapter) parameter).getCourseId();
+        } else if (parameter instanceof Map && statementId.endsWith(".deleteByCourseId")) {
+            Object value = ((Map<?, ?>) parameter).get("courseId");
+            courseId = value instanceof Long ? (Long) value : null;
+        }
+
+        if (courseId != null) {
+            evict(courseId);
+        } else {
+            evictAll();
+        }
+        log.debug("章节/课时变更，课程树缓存失效: {}，课程ID: {}", statementId, courseId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (trees) {
+            stats.put("size", trees.size());
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,20 @@
+package com.experiment.utils;
+
+/**
+ * 文本向量化接口
+ * 默认使用本地的{@link HashingEmbeddingProvider}，接入外部向量模型时注册一个标注@Primary的实现即可替换
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * 向量维度
+     */
+    int dimension();
+
+    /**
+     * 计算文本向量（需已做L2归一化，便于直接用点积计算余弦相似度）
+     * @param text 文本
+     * @return 长度为dimension()的向量
+     */
+    float[] embed(String text);
+}
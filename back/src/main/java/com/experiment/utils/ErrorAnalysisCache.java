@@ -0,0 +1,157 @@
+package com.experiment.utils;
+
+import com.experiment.mapper.QuestionMapper;
+import com.experiment.mapper.StudentErrorAggregateMapper;
+import com.experiment.pojo.ErrorQuestionAnalysisDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 学生错题分析结果缓存（学生ID -> 带版本的错题分析列表）
+ * 知识点训练、综合训练、错题统计、错题分布都依赖同一份分析结果。缓存项记录计算时学生的答题版本
+ * （最近作答时间 + 累计作答次数），读取时版本一致即命中，因此分析只在学生有新答题记录后重算一次；
+ * 同一学生同一版本的并发未命中只计算一次。题目变化不体现在答题版本中，由写操作回调全部失效
+ */
+@Component
+public class ErrorAnalysisCache implements MapperWriteListener {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private final LinkedHashMap<Long, Entry> analyses = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 正在计算的分析（学生ID:版本 -> 结果），用于合并并发计算
+     */
+    private final Map<String, CompletableFuture<List<ErrorQuestionAnalysisDTO>>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleMisses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 读取学生错题分析，缓存版本与当前答题版本不一致或未缓存时调用loader计算
+     * @param studentId 学生ID
+     * @param version 学生当前的答题版本
+     * @param loader 完整的错题分析逻辑，失败时应抛出异常而不是返回部分结果（异常不会被缓存，下次读取重新计算）
+     * @return 只读列表，调用方不应修改其中的对象
+     */
+    public List<ErrorQuestionAnalysisDTO> getOrLoad(Long studentId, String version,
+                                                    Supplier<List<ErrorQuestionAnalysisDTO>> loader) {
+        synchronized (analyses) {
+            Entry entry = analyses.get(studentId);
+            if (entry != null && entry.version.equals(version)) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                staleMisses.increment();
+            }
+        }
+
+        String loadingKey = studentId + ":" + version;
+        CompletableFuture<List<ErrorQuestionAnalysisDTO>> future = new CompletableFuture<>();
+        CompletableFuture<List<ErrorQuestionAnalysisDTO>> existing = loading.putIfAbsent(loadingKey, future);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                // 与计算线程抛出同一个异常
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            long loadedGeneration = generation.get();
+            List<ErrorQuestionAnalysisDTO> value = Collections.unmodifiableList(loader.get());
+            synchronized (analyses) {
+                if (generation.get() == loadedGeneration) {
+                    analyses.put(studentId, new Entry(version, value));
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(loadingKey, future);
+        }
+    }
+
+    public void evict(Long studentId) {
+        synchronized (analyses) {
+            generation.incrementAndGet();
+            analyses.remove(studentId);
+        }
+    }
+
+    public void evictAll() {
+        synchronized (analyses) {
+            generation.incrementAndGet();
+            analyses.clear();
+        }
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(StudentErrorAggregateMapper.class, QuestionMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        if (statementId.startsWith(StudentErrorAggregateMapper.class.getName())
+                && parameter instanceof Map && ((Map<?, ?>) parameter).containsKey("studentId")
+                && ((Map<?, ?>) parameter).get("studentId") instanceof Long) {
+            evict((Long) ((Map<?, ?>) parameter).get("studentId"));
+        } else {
+            evictAll();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (analyses) {
+            stats.put("size", analyses.size());
+        }
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum() + coalesced.sum();
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("staleMisses", staleMisses.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("hitRate", requestCount == 0 ? 0.0 : Math.round(hitCount * 10000.0 / requestCount) / 100.0);
+        return stats;
+    }
+
+    private static final class Entry {
+        private final String version;
+        private final List<ErrorQuestionAnalysisDTO> value;
+
+        private Entry(String version, List<ErrorQuestionAnalysisDTO> value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.experiment.utils;
+
+import com.experiment.mapper.ExamMapper;
+import com.experiment.mapper.QuestionMapper;
+import com.experiment.mapper.QuestionOptionMapper;
+import com.experiment.pojo.Exam;
+import com.experiment.pojo.Question;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 已发布考试的试卷快照缓存
+ * 快照中的题目列表、选项列表均不可修改；同一场考试并发未命中时只有一个请求查询数据库，其余请求等待其结果。
+ * 考试、题目、选项表有写操作时失效
+ */
+@Slf4j
+@Component
+public class ExamPaperCache implements MapperWriteListener {
+
+    private static final int MAX_ENTRIES = 200;
+
+    private static final String STATUS_PUBLISHED = "published";
+
+    private final LinkedHashMap<Long, Exam> papers = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Exam> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 正在加载的试卷，用于合并同一考试的并发加载
+     */
+    private final Map<Long, CompletableFuture<Exam>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 读取试卷，未命中时调用loader加载；只有已发布的考试会被缓存
+     * @param examId 考试ID
+     * @param loader 从数据库组装完整试卷的逻辑
+     * @return 试卷（每次返回新的Exam对象，题目列表为共享的只读快照）；考试不存在时返回null
+     */
+    public Exam getOrLoad(Long examId, Function<Long, Exam> loader) {
+        Exam cached;
+        synchronized (papers) {
+            cached = papers.get(examId);
+        }
+        if (cached != null) {
+            hits.increment();
+            return copyOf(cached);
+        }
+
+        CompletableFuture<Exam> future = new CompletableFuture<>();
+        CompletableFuture<Exam> existing = loading.putIfAbsent(examId, future);
+        if (existing != null) {
+            coalesced.increment();
+            Exam exam = existing.join();
+            return exam == null ? null : copyOf(exam);
+        }
+
+        misses.increment();
+        try {
+            long loadedGeneration = generation.get();
+            Exam exam = loader.apply(examId);
+            Exam snapshot = exam == null ? null : freeze(exam);
+            if (snapshot != null && STATUS_PUBLISHED.equals(snapshot.getStatus())) {
+                synchronized (papers) {
+                    if (generation.get() == loadedGeneration) {
+                        papers.put(examId, snapshot);
+                    }
+                }
+            }
+            future.complete(snapshot);
+            return snapshot == null ? null : copyOf(snapshot);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(examId, future);
+        }
+    }
+
+    public void evict(Long examId) {
+        synchronized (papers) {
+            generation.incrementAndGet();
+            papers.remove(examId);
+        }
+    }
+
+    public void evictAll() {
+        synchronized (papers) {
+            generation.incrementAndGet();
+            papers.clear();
+        }
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(ExamMapper.class, QuestionMapper.class, QuestionOptionMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        if (parameter instanceof Exam && ((Exam) parameter).getId() != null) {
+            evict(((Exam) parameter).getId());
+        } else {
+            evictAll();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (papers) {
+            stats.put("size", papers.size());
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("coalesced", coalesced.sum());
+        return stats;
+    }
+
+    /**
+     * 把题目及选项列表替换为只读列表
+     */
+    private Exam freeze(Exam exam) {
+        Exam snapshot = copyOf(exam);
+        if (exam.getQuestions() != null) {
+            List<Question> questions = exam.getQuestions().stream().map(question -> {
+                Question frozen = new Question();
+                BeanUtils.copyProperties(question, frozen);
+                if (question.getOptions() != null) {
+                    frozen.setOptions(Collections.unmodifiableList(question.getOptions()));
+                }
+                return frozen;
+            }).collect(Collectors.toList());
+            snapshot.setQuestions(Collections.unmodifiableList(questions));
+        }
+        return snapshot;
+    }
+
+    private Exam copyOf(Exam exam) {
+        Exam copy = new Exam();
+        BeanUtils.copyProperties(exam, copy);
+        return copy;
+    }
+}
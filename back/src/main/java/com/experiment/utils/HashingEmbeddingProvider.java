@@ -0,0 +1,77 @@
+package com.experiment.utils;
+
+import com.experiment.config.KnowledgeRetrievalProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于特征哈希的本地向量化实现
+ * 对分词结果做带符号哈希投影，词频取对数平滑后L2归一化；结果只依赖输入文本，离线可用且可复现
+ */
+@Component
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private final int dimension;
+
+    @Autowired
+    public HashingEmbeddingProvider(KnowledgeRetrievalProperties properties) {
+        this.dimension = properties.getEmbeddingDimension();
+    }
+
+    public HashingEmbeddingProvider(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimension];
+        List<String> tokens = CjkTokenizer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return vector;
+        }
+
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : tokens) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+            int hash = mix(entry.getKey().hashCode());
+            int slot = Math.floorMod(hash, dimension);
+            float sign = (hash & 0x80000000) == 0 ? 1f : -1f;
+            vector[slot] += sign * (float) (1 + Math.log(entry.getValue()));
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimension; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * murmur3的finalizer，打散String.hashCode的低位分布
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
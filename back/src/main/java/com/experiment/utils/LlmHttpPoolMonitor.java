@@ -0,0 +1,194 @@
+package com.experiment.utils;
+
+import com.experiment.config.LlmHttpProperties;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大模型HTTP连接池监控
+ * 作为OkHttp拦截器限制单主机并发（同步调用不受Dispatcher限制），并统计连接池使用情况；
+ * 许可一直持有到响应体关闭，SSE流式响应在整个读取期间都计入单主机并发
+ */
+@Slf4j
+@Component
+public class LlmHttpPoolMonitor implements Interceptor {
+
+    private final LlmHttpProperties properties;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hostInFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder totalLatencyMs = new LongAdder();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private volatile ConnectionPool connectionPool;
+    private volatile Dispatcher dispatcher;
+
+    public LlmHttpPoolMonitor(LlmHttpProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 绑定被监控的连接池和调度器
+     */
+    public void register(ConnectionPool connectionPool, Dispatcher dispatcher) {
+        this.connectionPool = connectionPool;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String host = chain.request().url().host();
+        Semaphore permits = hostPermits.computeIfAbsent(host,
+                h -> new Semaphore(properties.getMaxRequestsPerHost(), true));
+
+        waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(properties.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待HTTP连接许可被中断");
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            rejectedRequests.increment();
+            log.warn("主机{}并发请求已达上限{}，请求被拒绝", host, properties.getMaxRequestsPerHost());
+            throw new IOException("HTTP连接池繁忙，请稍后重试: " + host);
+        }
+
+        AtomicInteger inFlight = hostInFlight.computeIfAbsent(host, h -> new AtomicInteger());
+        inFlight.incrementAndGet();
+        totalRequests.increment();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                permits.release();
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof IOException) {
+                failedRequests.increment();
+            }
+            release.run();
+            throw e;
+        } finally {
+            totalLatencyMs.add(System.currentTimeMillis() - start);
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            release.run();
+            return response;
+        }
+        return response.newBuilder().body(new PermitReleasingBody(body, release)).build();
+    }
+
+    /**
+     * 关闭（或读完后关闭）时归还主机许可的响应体
+     */
+    private static class PermitReleasingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        PermitReleasingBody(ResponseBody delegate, Runnable release) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new PermitReleasingSource(delegate.source(), release));
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    private static class PermitReleasingSource extends ForwardingSource {
+        private final Runnable release;
+
+        PermitReleasingSource(Source delegate, Runnable release) {
+            super(delegate);
+            this.release = release;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * 获取连接池使用情况
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        if (connectionPool != null) {
+            int total = connectionPool.connectionCount();
+            int idle = connectionPool.idleConnectionCount();
+            stats.put("connectionCount", total);
+            stats.put("idleConnectionCount", idle);
+            stats.put("activeConnectionCount", total - idle);
+            stats.put("maxIdleConnections", properties.getMaxIdleConnections());
+        }
+        if (dispatcher != null) {
+            stats.put("runningAsyncCalls", dispatcher.runningCallsCount());
+            stats.put("queuedAsyncCalls", dispatcher.queuedCallsCount());
+        }
+        long requests = totalRequests.sum();
+        stats.put("totalRequests", requests);
+        stats.put("failedRequests", failedRequests.sum());
+        stats.put("rejectedRequests", rejectedRequests.sum());
+        stats.put("waitingForPermit", waiting.get());
+        stats.put("avgLatencyMs", requests > 0 ? totalLatencyMs.sum() / requests : 0);
+        stats.put("maxRequestsPerHost", properties.getMaxRequestsPerHost());
+
+        Map<String, Integer> perHost = new HashMap<>();
+        hostInFlight.forEach((host, count) -> perHost.put(host, count.get()));
+        stats.put("inFlightPerHost", perHost);
+        return stats;
+    }
+}
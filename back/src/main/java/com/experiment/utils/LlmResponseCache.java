@@ -0,0 +1,289 @@
+package com.experiment.utils;
+
+import com.experiment.config.LlmCacheProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 大模型响应缓存
+ * 以 模型+系统提示+用户消息 的SHA-256作为键，内存层按LRU+TTL淘汰，可选磁盘层在重启后继续命中；
+ * 磁盘层由后台线程定期删除过期文件，并按修改时间淘汰超出数量上限的文件
+ */
+@Slf4j
+@Component
+public class LlmResponseCache {
+
+    private final LlmCacheProperties properties;
+
+    private final LinkedHashMap<String, CacheEntry> memory;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+
+    private ScheduledExecutorService diskSweeper;
+
+    public LlmResponseCache(LlmCacheProperties properties) {
+        this.properties = properties;
+        this.memory = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > properties.getMaxEntries()) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isDiskEnabled()) {
+            return;
+        }
+        diskSweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "llm-cache-disk-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, properties.getDiskSweepMinutes());
+        diskSweeper.scheduleWithFixedDelay(this::sweepDisk, interval, interval, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (diskSweeper != null) {
+            diskSweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 计算缓存键
+     */
+    public String buildKey(String model, String systemPrompt, String userMessage) {
+        return DigestUtils.sha256Hex(model + '\u0000' + systemPrompt + '\u0000' + userMessage);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 查询缓存，未命中返回null
+     */
+    public String get(String key) {
+        long ttlMillis = properties.getTtlMinutes() * 60_000L;
+        long now = System.currentTimeMillis();
+
+        synchronized (memory) {
+            CacheEntry entry = memory.get(key);
+            if (entry != null) {
+                if (now - entry.createTime <= ttlMillis) {
+                    memoryHits.increment();
+                    return entry.value;
+                }
+                memory.remove(key);
+            }
+        }
+
+        if (properties.isDiskEnabled()) {
+            CacheEntry entry = readFromDisk(key, now, ttlMillis);
+            if (entry != null) {
+                diskHits.increment();
+                // 沿用文件的写入时间，磁盘上快过期的条目回到内存后不会重新计满TTL
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+                return entry.value;
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String key, String value) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            memory.put(key, new CacheEntry(value, now));
+        }
+        puts.increment();
+        if (properties.isDiskEnabled()) {
+            writeToDisk(key, value);
+        }
+    }
+
+    /**
+     * 记录一次绕过缓存的调用
+     */
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+    }
+
+    /**
+     * 获取缓存命中统计
+     */
+    public Map<String, Object> getStats() {
+        long memHits = memoryHits.sum();
+        long dHits = diskHits.sum();
+        long miss = misses.sum();
+        long lookups = memHits + dHits + miss;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("diskEnabled", properties.isDiskEnabled());
+        synchronized (memory) {
+            stats.put("size", memory.size());
+        }
+        stats.put("maxEntries", properties.getMaxEntries());
+        stats.put("memoryHits", memHits);
+        stats.put("diskHits", dHits);
+        stats.put("misses", miss);
+        stats.put("puts", puts.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("bypasses", bypasses.sum());
+        stats.put("diskEvictions", diskEvictions.sum());
+        stats.put("hitRate", lookups > 0 ? (double) (memHits + dHits) / lookups : 0.0);
+        return stats;
+    }
+
+    private Path diskFile(String key) {
+        return Paths.get(properties.getDiskPath(), key.substring(0, 2), key + ".txt");
+    }
+
+    private CacheEntry readFromDisk(String key, long now, long ttlMillis) {
+        Path file = diskFile(key);
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            long createTime = Files.getLastModifiedTime(file).toMillis();
+            if (now - createTime > ttlMillis) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return new CacheEntry(Files.readString(file, StandardCharsets.UTF_8), createTime);
+        } catch (IOException e) {
+            log.warn("读取磁盘缓存失败: {}", file, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, String value) {
+        Path file = diskFile(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.writeString(tmp, value, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入磁盘缓存失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 清理磁盘缓存：删除过期文件，文件数仍超过上限时从最旧的开始删除
+     */
+    public void sweepDisk() {
+        Path root = Paths.get(properties.getDiskPath());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        long expireBefore = System.currentTimeMillis() - properties.getTtlMinutes() * 60_000L;
+        List<DiskFile> live = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".txt"))::iterator) {
+                try {
+                    FileTime modified = Files.getLastModifiedTime(file);
+                    if (modified.toMillis() < expireBefore) {
+                        deleteDiskFile(file);
+                    } else {
+                        live.add(new DiskFile(file, modified.toMillis()));
+                    }
+                } catch (IOException e) {
+                    // 文件可能刚被并发删除或替换，跳过
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理磁盘缓存失败: {}", root, e);
+            return;
+        }
+
+        int excess = live.size() - properties.getMaxDiskEntries();
+        if (excess > 0) {
+            live.sort(Comparator.comparingLong(f -> f.modified));
+            for (int i = 0; i < excess; i++) {
+                deleteDiskFile(live.get(i).path);
+            }
+        }
+    }
+
+    private void deleteDiskFile(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                diskEvictions.increment();
+            }
+        } catch (IOException e) {
+            log.warn("删除磁盘缓存文件失败: {}", file, e);
+        }
+    }
+
+    private static class DiskFile {
+        private final Path path;
+        private final long modified;
+
+        DiskFile(Path path, long modified) {
+            this.path = path;
+            this.modified = modified;
+        }
+    }
+
+    private static class CacheEntry {
+        private final String value;
+        private final long createTime;
+
+        CacheEntry(String value, long createTime) {
+            this.value = value;
+            this.createTime = createTime;
+        }
+    }
+}
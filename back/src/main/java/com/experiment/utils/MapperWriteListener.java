@@ -0,0 +1,31 @@
+package com.experiment.utils;
+
+import java.util.Set;
+
+/**
+ * Mapper写操作监听器
+ * 由{@link com.experiment.config.MapperWriteInterceptor}在insert/update/delete执行后回调，用于让内存缓存失效
+ */
+public interface MapperWriteListener {
+
+    /**
+     * 关注的Mapper接口
+     */
+    Set<Class<?>> watchedMappers();
+
+    /**
+     * 写操作已执行（所在事务提交后会再回调一次，避免提交前被并发读重新填充旧数据）
+     * @param statementId Mapper方法ID，如 com.experiment.mapper.LessonMapper.update
+     * @param parameter 方法参数
+     */
+    void onWrite(String statementId, Object parameter);
+
+    /**
+     * 写操作已提交：在事务中时只在提交后回调一次，回滚不回调；不在事务中时执行后立即回调。
+     * 用于把新写入的数据增量加入内存结构，避免回滚的写入留在其中
+     * @param statementId Mapper方法ID
+     * @param parameter 方法参数
+     */
+    default void onCommitted(String statementId, Object parameter) {
+    }
+}
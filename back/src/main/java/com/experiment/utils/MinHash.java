@@ -0,0 +1,157 @@
+package com.experiment.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * MinHash文本签名
+ * 文本归一化（只保留字母、数字、汉字，英文转小写）后取字符二元组集合，用64个哈希函数各取最小值作为签名；
+ * 两个签名相同位置取值相等的比例即字符二元组集合Jaccard相似度的估计，适合题干这类短文本的近似重复检测
+ */
+public final class MinHash {
+
+    /**
+     * 签名长度（哈希函数个数）
+     */
+    public static final int SIGNATURE_SIZE = 64;
+
+    /**
+     * 认定为近似重复的默认相似度
+     */
+    public static final double DEFAULT_THRESHOLD = 0.75;
+
+    private static final long[] SEEDS = new long[SIGNATURE_SIZE];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * 计算文本签名
+     * @return 签名；文本归一化后为空时返回null
+     */
+    public static int[] signature(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        if (normalized.length() == 1) {
+            update(signature, normalized.charAt(0));
+        }
+        for (int i = 0; i + 1 < normalized.length(); i++) {
+            update(signature, ((long) normalized.charAt(i) << 16) | normalized.charAt(i + 1));
+        }
+        return signature;
+    }
+
+    /**
+     * 计算题目签名：题干加各选项内容，使题干相同而选项不同的题目不被误判为重复
+     * @return 签名；题干和选项都为空时返回null
+     */
+    public static int[] signature(String content, Collection<String> optionTexts) {
+        StringBuilder text = new StringBuilder(content != null ? content : "");
+        if (optionTexts != null) {
+            for (String option : optionTexts) {
+                if (option != null) {
+                    text.append('\n').append(option);
+                }
+            }
+        }
+        return signature(text.toString());
+    }
+
+    /**
+     * 估计两个签名对应文本的Jaccard相似度
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    /**
+     * 签名编码为Base64字符串，便于随题目一起存库
+     */
+    public static String encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIGNATURE_SIZE * 4);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解码签名；格式不正确时返回null
+     */
+    public static int[] decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length != SIGNATURE_SIZE * 4) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[SIGNATURE_SIZE];
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+
+    /**
+     * 去掉空白和标点，英文转小写，使仅在格式上不同的题目得到相同签名
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static void update(int[] signature, long shingle) {
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            int hash = (int) mix(shingle ^ SEEDS[i]);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+
+    /**
+     * 64位混合函数（SplitMix64）
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
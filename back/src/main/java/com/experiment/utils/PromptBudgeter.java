@@ -0,0 +1,273 @@
+package com.experiment.utils;
+
+import com.experiment.config.PromptBudgetProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 提示词token预算控制
+ * 长文档按段落切块，按与问题的相关度（无问题时按在文中的均匀分布）挑选块，保证整个提示词不超过接口预算；
+ * 同时按接口统计实际发送的token数，便于核算成本
+ */
+@Slf4j
+@Component
+public class PromptBudgeter {
+
+    private static final String OMITTED_MARK = "\n\n……（中间内容已省略）……\n\n";
+
+    private final PromptBudgetProperties properties;
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public PromptBudgeter(PromptBudgetProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 接口的提示词预算
+     * @param endpoint 接口标识
+     * @return token预算
+     */
+    public int budgetFor(String endpoint) {
+        return properties.getBudgets().getOrDefault(endpoint, properties.getDefaultBudget());
+    }
+
+    /**
+     * 把文档裁剪到预算以内
+     * @param endpoint 接口标识
+     * @param document 文档内容
+     * @param query 用户问题，用于挑选相关片段；为null时按位置均匀挑选
+     * @param reservedTokens 提示词其余部分（系统提示、问题等）已占用的token数
+     * @return 裁剪结果
+     */
+    public FittedText fit(String endpoint, String document, String query, int reservedTokens) {
+        String text = document == null ? "" : document;
+        int available = Math.max(0, budgetFor(endpoint) - reservedTokens);
+        int originalTokens = TokenEstimator.estimate(text);
+        if (originalTokens <= available) {
+            return new FittedText(text, originalTokens, originalTokens, 1, 1);
+        }
+
+        List<String> chunks = split(text, properties.getChunkTokens());
+        List<Integer> order = rankChunks(chunks, query);
+
+        // 按优先级选块，输出时恢复原文顺序
+        TreeMap<Integer, String> selected = new TreeMap<>();
+        int used = 0;
+        int markTokens = TokenEstimator.estimate(OMITTED_MARK);
+        for (int index : order) {
+            String chunk = chunks.get(index);
+            int cost = TokenEstimator.estimate(chunk) + markTokens;
+            if (used + cost > available) {
+                if (selected.isEmpty()) {
+                    // 单块也放不下时截断该块
+                    String truncated = TokenEstimator.truncate(chunk, Math.max(0, available - markTokens));
+                    selected.put(index, truncated);
+                    used = TokenEstimator.estimate(truncated);
+                }
+                continue;
+            }
+            selected.put(index, chunk);
+            used += cost;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int previous = -1;
+        for (Map.Entry<Integer, String> entry : selected.entrySet()) {
+            if (entry.getKey() != previous + 1) {
+                sb.append(OMITTED_MARK);
+            } else if (sb.length() > 0) {
+                sb.append("\n\n");
+            }
+            sb.append(entry.getValue());
+            previous = entry.getKey();
+        }
+        if (previous != chunks.size() - 1) {
+            sb.append(OMITTED_MARK);
+        }
+
+        String fitted = sb.toString();
+        log.info("文档超出预算已裁剪: 接口={}，原始约{}tokens，保留约{}tokens，块数 {}/{}",
+                endpoint, originalTokens, TokenEstimator.estimate(fitted), selected.size(), chunks.size());
+        return new FittedText(fitted, originalTokens, TokenEstimator.estimate(fitted), chunks.size(), selected.size());
+    }
+
+    /**
+     * 记录一次实际发送的提示词
+     * @param endpoint 接口标识
+     * @param systemPrompt 系统提示词
+     * @param userMessage 用户消息
+     * @return 估算的token数
+     */
+    public int record(String endpoint, String systemPrompt, String userMessage) {
+        int tokens = TokenEstimator.estimate(systemPrompt) + TokenEstimator.estimate(userMessage);
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, k -> new EndpointStats());
+        endpointStats.calls.increment();
+        endpointStats.tokens.add(tokens);
+        endpointStats.maxTokens.accumulateAndGet(tokens, Math::max);
+        return tokens;
+    }
+
+    /**
+     * 各接口发送token统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        stats.forEach((endpoint, s) -> {
+            long calls = s.calls.sum();
+            long tokens = s.tokens.sum();
+            Map<String, Object> item = new HashMap<>();
+            item.put("budget", budgetFor(endpoint));
+            item.put("calls", calls);
+            item.put("totalTokens", tokens);
+            item.put("avgTokens", calls == 0 ? 0 : tokens / calls);
+            item.put("maxTokens", s.maxTokens.get());
+            result.put(endpoint, item);
+        });
+        return result;
+    }
+
+    /**
+     * 按段落切块，超长段落再按字符硬切
+     */
+    private List<String> split(String text, int chunkTokens) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String paragraph : text.split("\\n\\s*\\n")) {
+            String trimmed = paragraph.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int tokens = TokenEstimator.estimate(trimmed);
+            if (currentTokens > 0 && currentTokens + tokens > chunkTokens) {
+                chunks.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            while (tokens > chunkTokens) {
+                String head = TokenEstimator.truncate(trimmed, chunkTokens);
+                head = head.substring(0, head.length() - 1);
+                if (head.isEmpty()) {
+                    break;
+                }
+                chunks.add(head);
+                trimmed = trimmed.substring(head.length()).trim();
+                tokens = TokenEstimator.estimate(trimmed);
+            }
+            if (current.length() > 0) {
+                current.append("\n\n");
+            }
+            current.append(trimmed);
+            currentTokens += tokens;
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    /**
+     * 块的选取优先级：首块（通常是标题和引言）优先，其余按BM25相关度；
+     * 没有问题或问题不命中任何块时按位置均匀分布，使裁剪后仍覆盖全文结构
+     */
+    private List<Integer> rankChunks(List<String> chunks, String query) {
+        List<Integer> order = new ArrayList<>();
+        boolean[] added = new boolean[chunks.size()];
+        order.add(0);
+        added[0] = true;
+
+        if (query != null && !query.isBlank()) {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                ids.add(i);
+            }
+            Bm25Index<Integer> index = Bm25Index.build(ids, i -> CjkTokenizer.tokenize(chunks.get(i)));
+            for (Bm25Index.Hit<Integer> hit : index.search(CjkTokenizer.tokenize(query), chunks.size())) {
+                if (!added[hit.getDocument()]) {
+                    order.add(hit.getDocument());
+                    added[hit.getDocument()] = true;
+                }
+            }
+        }
+
+        // 均匀分布的补充顺序：依次取区间中点
+        List<int[]> ranges = new ArrayList<>(Collections.singletonList(new int[]{1, chunks.size() - 1}));
+        while (!ranges.isEmpty()) {
+            List<int[]> next = new ArrayList<>();
+            for (int[] range : ranges) {
+                if (range[0] > range[1]) {
+                    continue;
+                }
+                int mid = (range[0] + range[1]) >>> 1;
+                if (!added[mid]) {
+                    order.add(mid);
+                    added[mid] = true;
+                }
+                next.add(new int[]{range[0], mid - 1});
+                next.add(new int[]{mid + 1, range[1]});
+            }
+            ranges = next;
+        }
+        return order;
+    }
+
+    /**
+     * 裁剪结果
+     */
+    public static class FittedText {
+        private final String text;
+        private final int originalTokens;
+        private final int tokens;
+        private final int totalChunks;
+        private final int selectedChunks;
+
+        FittedText(String text, int originalTokens, int tokens, int totalChunks, int selectedChunks) {
+            this.text = text;
+            this.originalTokens = originalTokens;
+            this.tokens = tokens;
+            this.totalChunks = totalChunks;
+            this.selectedChunks = selectedChunks;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getOriginalTokens() {
+            return originalTokens;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+
+        public int getTotalChunks() {
+            return totalChunks;
+        }
+
+        public int getSelectedChunks() {
+            return selectedChunks;
+        }
+
+        public boolean isTruncated() {
+            return tokens < originalTokens;
+        }
+    }
+
+    private static class EndpointStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder tokens = new LongAdder();
+        private final AtomicLong maxTokens = new AtomicLong();
+    }
+}
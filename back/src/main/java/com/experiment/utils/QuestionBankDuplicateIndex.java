@@ -0,0 +1,171 @@
+package com.experiment.utils;
+
+import com.experiment.config.QuestionBankProperties;
+import com.experiment.mapper.QuestionBankMapper;
+import com.experiment.pojo.QuestionBank;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 题库近似重复索引
+ * 每道题的MinHash签名随题目存入question_bank.minhash，首次使用时一次性载入内存建立LSH索引
+ * （缺签名的旧题目在载入时补算并回写）；之后新增题目在写入提交后加入索引（回滚的写入不会进入索引），删除题目时重建
+ */
+@Slf4j
+@Component
+public class QuestionBankDuplicateIndex implements MapperWriteListener {
+
+    /**
+     * 补算签名时每批处理的题目数
+     */
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final QuestionBankMapper questionBankMapper;
+    private final QuestionBankProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile MinHashIndex index;
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public QuestionBankDuplicateIndex(QuestionBankMapper questionBankMapper, QuestionBankProperties properties) {
+        this.questionBankMapper = questionBankMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * 题库中是否已有近似重复的题目
+     */
+    public boolean isDuplicate(int[] signature) {
+        if (signature == null) {
+            return false;
+        }
+        lookups.increment();
+        boolean duplicate = index().containsSimilar(signature, properties.getDuplicateThreshold());
+        if (duplicate) {
+            duplicates.increment();
+        }
+        return duplicate;
+    }
+
+    private MinHashIndex index() {
+        MinHashIndex current = index;
+        if (current != null && !stale.get()) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    private synchronized MinHashIndex rebuild() {
+        if (index != null && !stale.get()) {
+            return index;
+        }
+        stale.set(false);
+        long startTime = System.currentTimeMillis();
+        backfill();
+        MinHashIndex rebuilt = new MinHashIndex();
+        for (QuestionBank row : questionBankMapper.selectMinhashes()) {
+            int[] signature = MinHash.decode(row.getMinhash());
+            if (signature != null) {
+                rebuilt.add(signature);
+            }
+        }
+        index = rebuilt;
+        log.info("题库近似重复索引已建立: {}道题目，耗时{}ms", rebuilt.size(), System.currentTimeMillis() - startTime);
+        return rebuilt;
+    }
+
+    /**
+     * 为缺少签名的题目补算签名；无法计算签名的题目写入空串，避免反复补算
+     */
+    private void backfill() {
+        List<QuestionBank> rows;
+        while (!(rows = questionBankMapper.selectWithoutMinhash(BACKFILL_BATCH_SIZE)).isEmpty()) {
+            for (QuestionBank row : rows) {
+                int[] signature = MinHash.signature(row.getContent(), optionTexts(row.getOptions()));
+                questionBankMapper.updateMinhash(row.getId(), signature != null ? MinHash.encode(signature) : "");
+            }
+            log.info("补算{}道题库题目的MinHash签名", rows.size());
+        }
+    }
+
+    /**
+     * 从选项JSON中取出各选项内容
+     */
+    private List<String> optionTexts(String optionsJson) {
+        List<String> texts = new ArrayList<>();
+        if (optionsJson == null || optionsJson.isEmpty()) {
+            return texts;
+        }
+        try {
+            for (JsonNode option : objectMapper.readTree(optionsJson)) {
+                if (option.hasNonNull("content")) {
+                    texts.add(option.get("content").asText());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("选项解析失败，只按题干计算签名: {}", e.getMessage());
+        }
+        return texts;
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(QuestionBankMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        if (statementId.endsWith(".deleteById")) {
+            stale.set(true);
+        }
+    }
+
+    @Override
+    public void onCommitted(String statementId, Object parameter) {
+        if (statementId.endsWith(".insert") && parameter instanceof QuestionBank) {
+            register((QuestionBank) parameter);
+        } else if (statementId.endsWith(".batchInsert") && parameter instanceof Map
+                && ((Map<?, ?>) parameter).containsKey("list")) {
+            for (Object item : (Collection<?>) ((Map<?, ?>) parameter).get("list")) {
+                if (item instanceof QuestionBank) {
+                    register((QuestionBank) item);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已提交的新题目加入索引；索引尚未建立时跳过，建立时会从数据库载入。
+     * 与重建并发时签名可能已从数据库载入过，完全相同的签名只加入一次
+     */
+    private void register(QuestionBank question) {
+        MinHashIndex current = index;
+        int[] signature = MinHash.decode(question.getMinhash());
+        if (current != null && signature != null) {
+            current.addIfAbsent(signature, 1.0);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        MinHashIndex current = index;
+        stats.put("size", current != null ? current.size() : 0);
+        stats.put("lookups", lookups.sum());
+        stats.put("duplicates", duplicates.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,122 @@
+package com.experiment.utils;
+
+import com.experiment.config.QuestionBankProperties;
+import com.experiment.mapper.QuestionBankMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 题库题目使用次数计数器
+ * 出题时只在内存中累加（题目ID -> LongAdder），由后台线程定期合并为一条 CASE 批量更新写回，
+ * 请求路径上不再逐题执行UPDATE；应用关闭时写回剩余计数
+ */
+@Slf4j
+@Component
+public class QuestionBankUseCounter {
+
+    /**
+     * 单条UPDATE语句包含的题目数上限
+     */
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final QuestionBankMapper questionBankMapper;
+    private final QuestionBankProperties properties;
+
+    private volatile ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 累加时持读锁、交换缓冲区时持写锁，保证交换后旧缓冲区不会再被写入
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private ScheduledExecutorService flusher;
+
+    public QuestionBankUseCounter(QuestionBankMapper questionBankMapper, QuestionBankProperties properties) {
+        this.questionBankMapper = questionBankMapper;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "question-bank-use-count");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getUseCountFlushSeconds();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * 记录一次使用
+     */
+    public void increment(Long questionId) {
+        swapLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(questionId, k -> new LongAdder()).increment();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 把累计的使用次数写回数据库，写入失败的计数放回缓冲区等待下次写回
+     */
+    public synchronized void flush() {
+        ConcurrentHashMap<Long, LongAdder> drained;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(drained.keySet());
+        for (int start = 0; start < ids.size(); start += FLUSH_CHUNK_SIZE) {
+            Map<Long, Long> increments = new LinkedHashMap<>();
+            for (Long id : ids.subList(start, Math.min(ids.size(), start + FLUSH_CHUNK_SIZE))) {
+                increments.put(id, drained.get(id).sum());
+            }
+            try {
+                questionBankMapper.batchIncrementUseCount(increments);
+            } catch (Exception e) {
+                log.warn("写回题库使用次数失败，{}道题目的计数将在下次重试: {}", increments.size(), e.getMessage());
+                increments.forEach(this::restore);
+            }
+        }
+    }
+
+    private void restore(Long questionId, Long count) {
+        swapLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(questionId, k -> new LongAdder()).add(count);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+}
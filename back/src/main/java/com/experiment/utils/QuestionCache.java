@@ -0,0 +1,138 @@
+package com.experiment.utils;
+
+import com.experiment.mapper.QuestionMapper;
+import com.experiment.pojo.Question;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 题目元数据读穿缓存（答案、分值、题型等，不含选项）
+ * 供练习提交、考试判分等按题目ID批量取题的场景共用；未命中的题目用一次IN查询补齐。
+ * 缓存中的Question对象为共享只读对象，调用方不应修改。题目表有写操作时失效
+ */
+@Slf4j
+@Component
+public class QuestionCache implements MapperWriteListener {
+
+    private static final int MAX_ENTRIES = 5000;
+
+    private final QuestionMapper questionMapper;
+
+    private final LinkedHashMap<Long, Question> questions = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Question> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    public QuestionCache(QuestionMapper questionMapper) {
+        this.questionMapper = questionMapper;
+    }
+
+    /**
+     * 查询单个题目
+     * @param id 题目ID
+     * @return 题目，不存在时返回null
+     */
+    public Question get(Long id) {
+        return getByIds(Collections.singletonList(id)).get(id);
+    }
+
+    /**
+     * 批量查询题目
+     * @param ids 题目ID
+     * @return 题目ID到题目的映射，不存在的题目不在结果中
+     */
+    public Map<Long, Question> getByIds(Collection<Long> ids) {
+        Map<Long, Question> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long loadedGeneration;
+        synchronized (questions) {
+            loadedGeneration = generation.get();
+            for (Long id : ids) {
+                Question question = questions.get(id);
+                if (question != null) {
+                    result.put(id, question);
+                } else if (id != null) {
+                    missing.add(id);
+                }
+            }
+        }
+        hits.add(result.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        loads.increment();
+        List<Question> loaded = questionMapper.selectByIds(new ArrayList<>(missing));
+        synchronized (questions) {
+            boolean unchanged = generation.get() == loadedGeneration;
+            for (Question question : loaded) {
+                result.put(question.getId(), question);
+                if (unchanged) {
+                    questions.put(question.getId(), question);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void evict(Long id) {
+        synchronized (questions) {
+            generation.incrementAndGet();
+            questions.remove(id);
+        }
+    }
+
+    public void evictAll() {
+        synchronized (questions) {
+            generation.incrementAndGet();
+            questions.clear();
+        }
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(QuestionMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        if (parameter instanceof Question && ((Question) parameter).getId() != null) {
+            evict(((Question) parameter).getId());
+        } else if (!statementId.endsWith(".insert") && !statementId.endsWith(".batchInsert")) {
+            // 新增题目不影响已缓存的题目
+            evictAll();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (questions) {
+            stats.put("size", questions.size());
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("loads", loads.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,22 @@
+package com.experiment.utils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 表格流式写出器
+ * 逐行写入输出流，不在内存中保留已写出的行
+ */
+public interface TableWriter {
+
+    /**
+     * 写入一行
+     * @param values 单元格值，数字按数值写出，其余按文本写出，null写为空单元格
+     */
+    void writeRow(List<?> values) throws IOException;
+
+    /**
+     * 写完所有行后调用，补齐文件结尾并刷新（不关闭底层输出流）
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,206 @@
+package com.experiment.utils;
+
+import com.experiment.mapper.CourseMapper;
+import com.experiment.mapper.ExamMapper;
+import com.experiment.mapper.StudentExamMapper;
+import com.experiment.mapper.StudentProgressMapper;
+import com.experiment.pojo.Course;
+import com.experiment.pojo.Exam;
+import com.experiment.pojo.StudentExam;
+import com.experiment.pojo.StudentProgress;
+import com.experiment.pojo.TeacherStatsSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 教师统计快照（教师ID -> 仪表盘指标）
+ * 首次读取时用一条聚合查询生成快照，之后仪表盘直接读内存；
+ * 成绩、学习记录、课程有写操作时只记录受影响的考试/课程，由后台线程合并后重算对应教师的快照
+ */
+@Slf4j
+@Component
+public class TeacherStatsSnapshotCache implements MapperWriteListener {
+
+    /**
+     * 后台合并刷新间隔（毫秒），同一教师在间隔内的多次写操作只重算一次
+     */
+    private static final long REFRESH_DELAY_MS = 1000;
+
+    /**
+     * 考试/课程不属于任何教师时的占位值，避免反复查库
+     */
+    private static final Long NO_TEACHER = -1L;
+
+    private final StudentExamMapper studentExamMapper;
+    private final ExamMapper examMapper;
+    private final CourseMapper courseMapper;
+
+    private final Map<Long, TeacherStatsSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> examTeachers = new ConcurrentHashMap<>();
+    private final Map<Long, Long> courseTeachers = new ConcurrentHashMap<>();
+
+    private final Set<Long> pendingExamIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingCourseIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyTeachers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean allDirty = new AtomicBoolean();
+
+    /**
+     * 写操作计数，加载前记录、加载后比对，期间有写入则把该教师标记为待刷新
+     */
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    private ScheduledExecutorService refresher;
+
+    public TeacherStatsSnapshotCache(StudentExamMapper studentExamMapper, ExamMapper examMapper, CourseMapper courseMapper) {
+        this.studentExamMapper = studentExamMapper;
+        this.examMapper = examMapper;
+        this.courseMapper = courseMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "teacher-stats-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshDirty, REFRESH_DELAY_MS, REFRESH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取教师统计快照，未生成过时同步加载
+     */
+    public TeacherStatsSnapshot get(Long teacherId) {
+        TeacherStatsSnapshot snapshot = snapshots.get(teacherId);
+        if (snapshot != null) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        return load(teacherId);
+    }
+
+    private TeacherStatsSnapshot load(Long teacherId) {
+        long loadedGeneration = writeGeneration.get();
+        TeacherStatsSnapshot snapshot = studentExamMapper.selectTeacherStatsSnapshot(teacherId);
+        if (snapshot == null) {
+            snapshot = new TeacherStatsSnapshot();
+        }
+        snapshot.setTeacherId(teacherId);
+        snapshot.setRefreshTime(LocalDateTime.now());
+        snapshots.put(teacherId, snapshot);
+        if (writeGeneration.get() != loadedGeneration) {
+            dirtyTeachers.add(teacherId);
+        }
+        refreshes.increment();
+        return snapshot;
+    }
+
+    @Override
+    public Set<Class<?>> watchedMappers() {
+        return Set.of(StudentExamMapper.class, StudentProgressMapper.class, ExamMapper.class, CourseMapper.class);
+    }
+
+    @Override
+    public void onWrite(String statementId, Object parameter) {
+        writeGeneration.incrementAndGet();
+        if (parameter instanceof StudentExam && ((StudentExam) parameter).getExamId() != null) {
+            pendingExamIds.add(((StudentExam) parameter).getExamId());
+        } else if (parameter instanceof StudentProgress && ((StudentProgress) parameter).getCourseId() != null) {
+            pendingCourseIds.add(((StudentProgress) parameter).getCourseId());
+        } else {
+            // 考试、课程本身变化（含归属教师变化）或无法定位到具体记录的写操作
+            if (statementId.startsWith(ExamMapper.class.getName())) {
+                examTeachers.clear();
+            } else if (statementId.startsWith(CourseMapper.class.getName())) {
+                courseTeachers.clear();
+            }
+            allDirty.set(true);
+        }
+    }
+
+    private void refreshDirty() {
+        try {
+            if (allDirty.getAndSet(false)) {
+                dirtyTeachers.addAll(snapshots.keySet());
+            }
+            for (Long examId : drain(pendingExamIds)) {
+                markDirty(examTeachers.computeIfAbsent(examId, this::resolveExamTeacher));
+            }
+            for (Long courseId : drain(pendingCourseIds)) {
+                markDirty(courseTeachers.computeIfAbsent(courseId, this::resolveCourseTeacher));
+            }
+            for (Long teacherId : drain(dirtyTeachers)) {
+                load(teacherId);
+            }
+        } catch (Exception e) {
+            log.warn("刷新教师统计快照失败", e);
+        }
+    }
+
+    /**
+     * 只刷新已经生成过快照的教师，其余教师在下次读取时自然加载最新数据
+     */
+    private void markDirty(Long teacherId) {
+        if (!NO_TEACHER.equals(teacherId) && snapshots.containsKey(teacherId)) {
+            dirtyTeachers.add(teacherId);
+        }
+    }
+
+    private Long resolveExamTeacher(Long examId) {
+        Exam exam = examMapper.selectById(examId);
+        return exam != null && exam.getTeacherId() != null ? exam.getTeacherId() : NO_TEACHER;
+    }
+
+    private Long resolveCourseTeacher(Long courseId) {
+        Course course = courseMapper.findById(courseId);
+        return course != null && course.getTeacherId() != null ? course.getTeacherId() : NO_TEACHER;
+    }
+
+    private static Set<Long> drain(Set<Long> source) {
+        Set<Long> drained = new HashSet<>();
+        for (Iterator<Long> it = source.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", snapshots.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("pendingTeachers", dirtyTeachers.size());
+        return stats;
+    }
+}
@@ -0,0 +1,52 @@
+package com.experiment.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器
+ * 令牌按固定速率补充，桶内最多积累一秒的令牌；令牌不足时预支并让调用方等待对应时长，
+ * 因此并发调用会被均匀地排开而不是同时放行
+ */
+public class TokenBucketRateLimiter {
+
+    private final double intervalNanos;
+    private final double maxPermits;
+
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 每秒允许的调用次数
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond必须大于0");
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.maxPermits = Math.max(1.0, permitsPerSecond);
+        this.storedPermits = maxPermits;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，必要时阻塞等待
+     * @return 实际等待的纳秒数
+     */
+    public long acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefillNanos) / intervalNanos);
+        lastRefillNanos = now;
+
+        long waitNanos = storedPermits >= 1 ? 0 : (long) ((1 - storedPermits) * intervalNanos);
+        storedPermits -= 1;
+        return waitNanos;
+    }
+}
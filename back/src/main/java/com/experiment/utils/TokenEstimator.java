@@ -0,0 +1,69 @@
+package com.experiment.utils;
+
+/**
+ * 大模型token数估算
+ * 不依赖具体模型的分词表，按字符类别近似：汉字约1个token，英文/数字约4个字符1个token，其余符号约2个字符1个token
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数
+     * @param text 文本
+     * @return 估算的token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int word = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '一' && c <= '鿿' || c >= '㐀' && c <= '䶿' || c >= '＀' && c <= '￯'
+                    || c >= '　' && c <= '〿') {
+                cjk++;
+            } else if (c < 128 && Character.isLetterOrDigit(c)) {
+                word++;
+            } else if (!Character.isWhitespace(c)) {
+                other++;
+            }
+        }
+        return cjk + (word + 3) / 4 + (other + 1) / 2;
+    }
+
+    /**
+     * 按token预算截断文本，尽量在换行或句末处截断
+     * @param text 文本
+     * @param maxTokens 最大token数
+     * @return 截断后的文本（未超出预算时原样返回）
+     */
+    public static String truncate(String text, int maxTokens) {
+        if (text == null || estimate(text) <= maxTokens) {
+            return text;
+        }
+        if (maxTokens <= 0) {
+            return "";
+        }
+        // 二分查找满足预算的最长前缀
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (estimate(text.substring(0, mid)) <= maxTokens) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        String prefix = text.substring(0, low);
+        int cut = Math.max(prefix.lastIndexOf('\n'), Math.max(prefix.lastIndexOf('。'), prefix.lastIndexOf(". ")));
+        if (cut > low / 2) {
+            prefix = prefix.substring(0, cut + 1);
+        }
+        return prefix + "…";
+    }
+}
@@ -0,0 +1,94 @@
+package com.experiment.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * 基于连续float数组的向量索引
+ * 所有向量按行存放在一个数组中，检索时顺序做点积，适合万级以内的段落规模；构建后不可变
+ *
+ * @param <D> 文档类型
+ */
+public class VectorIndex<D> {
+
+    private final List<D> documents;
+    private final float[] matrix;
+    private final int dimension;
+
+    private VectorIndex(List<D> documents, float[] matrix, int dimension) {
+        this.documents = documents;
+        this.matrix = matrix;
+        this.dimension = dimension;
+    }
+
+    /**
+     * 构建索引
+     * @param documents 文档列表
+     * @param vectors 取文档向量的函数（向量需已归一化）
+     * @param dimension 向量维度
+     */
+    public static <D> VectorIndex<D> build(List<D> documents, Function<D, float[]> vectors, int dimension) {
+        float[] matrix = new float[documents.size() * dimension];
+        for (int i = 0; i < documents.size(); i++) {
+            System.arraycopy(vectors.apply(documents.get(i)), 0, matrix, i * dimension, dimension);
+        }
+        return new VectorIndex<>(Collections.unmodifiableList(new ArrayList<>(documents)), matrix, dimension);
+    }
+
+    /**
+     * 空索引
+     */
+    public static <D> VectorIndex<D> empty() {
+        return new VectorIndex<>(Collections.emptyList(), new float[0], 0);
+    }
+
+    /**
+     * 余弦相似度top-k检索（向量已归一化，点积即余弦）
+     * @param query 查询向量
+     * @param topK 最多返回条数
+     * @param minScore 最低相似度，低于该值的结果被丢弃
+     * @return 按相似度从高到低排序的结果
+     */
+    public List<Bm25Index.Hit<D>> search(float[] query, int topK, double minScore) {
+        if (documents.isEmpty() || topK <= 0 || query.length != dimension) {
+            return Collections.emptyList();
+        }
+
+        int n = documents.size();
+        float[] scores = new float[n];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+        for (int i = 0; i < n; i++) {
+            int offset = i * dimension;
+            float dot = 0;
+            for (int d = 0; d < dimension; d++) {
+                dot += matrix[offset + d] * query[d];
+            }
+            scores[i] = dot;
+            if (dot < minScore) {
+                continue;
+            }
+            heap.offer(i);
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+
+        List<Bm25Index.Hit<D>> hits = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int i = heap.poll();
+            hits.add(new Bm25Index.Hit<>(documents.get(i), scores[i]));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        return documents.size();
+    }
+}
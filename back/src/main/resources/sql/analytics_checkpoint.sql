@@ -0,0 +1,8 @@
+-- 学习统计检查点表
+-- 内存中的活跃用户、连续学习天数、练习完成率、成绩分布等计数器定期序列化为JSON写入此表，重启后从这里恢复
+CREATE TABLE IF NOT EXISTS `analytics_checkpoint` (
+    `checkpoint_key` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '计数器名称',
+    `checkpoint_value` longtext CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '计数器内容（JSON）',
+    `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`checkpoint_key`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '学习统计检查点表' ROW_FORMAT = Dynamic;
@@ -0,0 +1,5 @@
+-- 题库近似重复检测的签名列
+-- 入库时写入题干+选项的MinHash签名（64个int的Base64），应用启动后首次查重时在内存中按签名建LSH索引；
+-- 已有题目的签名为NULL，由应用分批回填（无法计算签名的题目写入空串，避免重复回填）
+ALTER TABLE `question_bank`
+    ADD COLUMN `minhash` VARCHAR(400) NULL COMMENT '题干+选项的MinHash签名（Base64），用于近似重复检测' AFTER `avg_score`;
@@ -0,0 +1,9 @@
+-- 题库按题目池取题的索引
+-- 取题条件为 学科+知识点+题型+难度，按 use_count ASC, create_time DESC 排序取前N道；
+-- 原 idx_composite 只覆盖过滤列，每次都要对整个池做filesort。新索引把排序列按相同方向接在后面，
+-- 取题变成索引有序扫描并在LIMIT处停止（降序索引需要MySQL 8.0+）
+ALTER TABLE `question_bank`
+    ADD INDEX `idx_pool_use_count` (`subject`, `knowledge_point`, `type`, `difficulty`, `use_count` ASC, `create_time` DESC);
+
+-- 新索引的前缀与 idx_composite 相同，旧索引不再需要
+ALTER TABLE `question_bank` DROP INDEX `idx_composite`;
@@ -0,0 +1,32 @@
+-- 学生错题聚合表
+-- 每个学生每道题一行，答题记录写入时同步累加，错题分析直接读取本表，不再对student_answer分组和逐题子查询
+CREATE TABLE IF NOT EXISTS `student_error_aggregate` (
+    `student_id` bigint NOT NULL COMMENT '学生ID',
+    `question_id` bigint NOT NULL COMMENT '题目ID',
+    `error_count` int NOT NULL DEFAULT 0 COMMENT '答错次数',
+    `attempt_count` int NOT NULL DEFAULT 0 COMMENT '作答次数',
+    `last_error_time` datetime NULL DEFAULT NULL COMMENT '最近一次答错时间',
+    `last_answer` text CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL COMMENT '最近一次答错时的答案',
+    `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`student_id`, `question_id`) USING BTREE,
+    INDEX `idx_student_last_error`(`student_id` ASC, `last_error_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '学生错题聚合表' ROW_FORMAT = Dynamic;
+
+-- 用已有答题记录初始化（只需执行一次）
+INSERT INTO `student_error_aggregate` (`student_id`, `question_id`, `error_count`, `attempt_count`, `last_error_time`, `last_answer`)
+SELECT agg.student_id, agg.question_id, agg.error_count, agg.attempt_count, agg.last_error_time,
+       (SELECT sa2.answer FROM student_answer sa2
+        INNER JOIN student_exam se2 ON sa2.student_exam_id = se2.id
+        WHERE se2.student_id = agg.student_id AND sa2.question_id = agg.question_id AND sa2.is_correct = 0
+        ORDER BY sa2.create_time DESC, sa2.id DESC LIMIT 1)
+FROM (
+    SELECT se.student_id, sa.question_id,
+           SUM(CASE WHEN sa.is_correct = 0 THEN 1 ELSE 0 END) AS error_count,
+           COUNT(*) AS attempt_count,
+           MAX(CASE WHEN sa.is_correct = 0 THEN sa.create_time END) AS last_error_time
+    FROM student_answer sa
+    INNER JOIN student_exam se ON sa.student_exam_id = se.id
+    GROUP BY se.student_id, sa.question_id
+) agg
+ON DUPLICATE KEY UPDATE `error_count` = VALUES(`error_count`), `attempt_count` = VALUES(`attempt_count`),
+    `last_error_time` = VALUES(`last_error_time`), `last_answer` = VALUES(`last_answer`);
@@ -0,0 +1,4 @@
+-- 练习历史游标分页索引
+-- 覆盖 selectCompletedHistory 的过滤与排序：student_id + status 定位，(complete_time, id) 倒序扫描，避免回表排序
+ALTER TABLE `student_practice`
+    ADD INDEX `idx_student_status_complete` (`student_id`, `status`, `complete_time`, `id`);
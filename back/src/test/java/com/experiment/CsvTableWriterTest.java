@@ -0,0 +1,58 @@
+package com.experiment;
+
+import com.experiment.utils.CsvTableWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * CSV导出写出器测试类
+ */
+public class CsvTableWriterTest {
+
+    private static String write(List<?>... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvTableWriter writer = new CsvTableWriter(out);
+        for (List<?> row : rows) {
+            writer.writeRow(row);
+        }
+        writer.finish();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testStartsWithUtf8Bom() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvTableWriter writer = new CsvTableWriter(out);
+        writer.writeRow(List.of("学号"));
+        writer.finish();
+
+        byte[] bytes = out.toByteArray();
+        assertArrayEquals(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, Arrays.copyOf(bytes, 3));
+    }
+
+    @Test
+    public void testQuoting() throws IOException {
+        String csv = write(Arrays.asList("张三", "a,b", "说\"对\"", "第一行\n第二行", null, 95, 87.5));
+        assertEquals("\uFEFF张三,\"a,b\",\"说\"\"对\"\"\",\"第一行\n第二行\",,95,87.5\r\n", csv);
+    }
+
+    @Test
+    public void testFormulaPrefix() throws IOException {
+        String csv = write(List.of("=SUM(A1:A2)", "+1", "-1", "@cmd", "正常"), List.of(-1));
+        // 文本才加前缀，负数按数值写出
+        assertEquals("\uFEFF'=SUM(A1:A2),'+1,'-1,'@cmd,正常\r\n-1\r\n", csv);
+    }
+
+    @Test
+    public void testFormulaPrefixIsQuotedWithText() throws IOException {
+        assertEquals("\uFEFF\"'=1,2\"\r\n", write(List.of("=1,2")));
+    }
+}
@@ -0,0 +1,63 @@
+package com.experiment;
+
+import com.experiment.utils.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 活跃用户基数估计测试类
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void testSmallCardinalityIsExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long userId = 1; userId <= 10; userId++) {
+            sketch.add(userId);
+            sketch.add(userId);
+        }
+        assertEquals(10, sketch.estimate());
+    }
+
+    @Test
+    public void testEstimateError() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long userId = 1; userId <= 100000; userId++) {
+            sketch.add(userId);
+        }
+        assertTrue(Math.abs(sketch.estimate() - 100000) < 100000 * 0.05);
+    }
+
+    @Test
+    public void testMergeCountsUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (long userId = 0; userId < 5000; userId++) {
+            monday.add(userId);
+        }
+        for (long userId = 2500; userId < 7500; userId++) {
+            tuesday.add(userId);
+        }
+        HyperLogLog week = monday.copy();
+        week.merge(tuesday);
+        assertTrue(Math.abs(week.estimate() - 7500) < 7500 * 0.05);
+        assertTrue(Math.abs(monday.estimate() - 5000) < 5000 * 0.05);
+    }
+
+    @Test
+    public void testSerializationRoundTrip() {
+        HyperLogLog sparse = new HyperLogLog();
+        HyperLogLog dense = new HyperLogLog();
+        for (long userId = 0; userId < 50; userId++) {
+            sparse.add(userId);
+        }
+        for (long userId = 0; userId < 50000; userId++) {
+            dense.add(userId);
+        }
+        assertTrue(sparse.toBytes().length < 200);
+        assertEquals(sparse.estimate(), HyperLogLog.fromBytes(sparse.toBytes()).estimate());
+        assertEquals(dense.estimate(), HyperLogLog.fromBytes(dense.toBytes()).estimate());
+    }
+}
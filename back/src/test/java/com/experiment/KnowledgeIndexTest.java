@@ -0,0 +1,73 @@
+package com.experiment;
+
+import com.experiment.utils.Bm25Index;
+import com.experiment.utils.CjkTokenizer;
+import com.experiment.utils.EmbeddingProvider;
+import com.experiment.utils.HashingEmbeddingProvider;
+import com.experiment.utils.TokenEstimator;
+import com.experiment.utils.VectorIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 知识库检索测试类
+ */
+public class KnowledgeIndexTest {
+
+    @Test
+    public void testTokenize() {
+        List<String> tokens = CjkTokenizer.tokenize("TensorFlow.js 张量运算 is fast");
+        assertEquals(Arrays.asList("tensorflow", "js", "张量", "量运", "运算", "fast"), tokens);
+    }
+
+    @Test
+    public void testSearchRanking() {
+        List<String> docs = Arrays.asList(
+                "张量是TensorFlow的核心数据结构",
+                "神经网络由多个层组成",
+                "二叉树是一种数据结构，栈也是一种数据结构");
+        Bm25Index<String> index = Bm25Index.build(docs, CjkTokenizer::tokenize);
+
+        List<Bm25Index.Hit<String>> hits = index.search(CjkTokenizer.tokenize("数据结构"), 10);
+        assertEquals(2, hits.size());
+        assertEquals(docs.get(2), hits.get(0).getDocument());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    public void testSearchNoMatch() {
+        Bm25Index<String> index = Bm25Index.build(Arrays.asList("神经网络由多个层组成"), CjkTokenizer::tokenize);
+        assertTrue(index.search(CjkTokenizer.tokenize("数据库"), 10).isEmpty());
+        assertTrue(Bm25Index.<String>empty().search(CjkTokenizer.tokenize("张量"), 10).isEmpty());
+    }
+
+    @Test
+    public void testVectorSearch() {
+        EmbeddingProvider provider = new HashingEmbeddingProvider(256);
+        assertArrayEquals(provider.embed("卷积神经网络"), provider.embed("卷积神经网络"));
+
+        List<String> docs = Arrays.asList(
+                "卷积神经网络通过卷积层提取图像特征",
+                "数据库事务具有原子性和一致性",
+                "TensorFlow.js可以在浏览器中训练模型");
+        VectorIndex<String> index = VectorIndex.build(docs, provider::embed, provider.dimension());
+
+        List<Bm25Index.Hit<String>> hits = index.search(provider.embed("卷积层"), 1, 0.1);
+        assertEquals(1, hits.size());
+        assertEquals(docs.get(0), hits.get(0).getDocument());
+    }
+
+    @Test
+    public void testTokenBudget() {
+        String text = "知识库内容。".repeat(100);
+        String truncated = TokenEstimator.truncate(text, 50);
+        assertTrue(TokenEstimator.estimate(truncated) <= 51);
+        assertEquals("短文本", TokenEstimator.truncate("短文本", 50));
+    }
+}
@@ -0,0 +1,112 @@
+package com.experiment;
+
+import com.experiment.config.LlmCacheProperties;
+import com.experiment.utils.LlmResponseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 大模型响应缓存测试类
+ */
+public class LlmResponseCacheTest {
+
+    @TempDir
+    Path diskDir;
+
+    private LlmResponseCache newCache(int maxEntries, long ttlMinutes, boolean diskEnabled) {
+        LlmCacheProperties properties = new LlmCacheProperties();
+        properties.setMaxEntries(maxEntries);
+        properties.setTtlMinutes(ttlMinutes);
+        properties.setDiskEnabled(diskEnabled);
+        properties.setDiskPath(diskDir.toString());
+        return new LlmResponseCache(properties);
+    }
+
+    @Test
+    public void testKeyIsStableAndSeparatesFields() {
+        LlmResponseCache cache = newCache(10, 60, false);
+        String key = cache.buildKey("qwen-plus", "你是助教", "什么是TCP");
+        assertEquals(key, cache.buildKey("qwen-plus", "你是助教", "什么是TCP"));
+        assertEquals(64, key.length());
+        assertNotEquals(key, cache.buildKey("qwen-max", "你是助教", "什么是TCP"));
+        // 字段边界不同的输入不能拼出同一个键
+        assertNotEquals(cache.buildKey("m", "ab", "c"), cache.buildKey("m", "a", "bc"));
+    }
+
+    @Test
+    public void testExpiredEntryIsNotServed() throws InterruptedException {
+        LlmResponseCache cache = newCache(10, 0, false);
+        cache.put("k", "v");
+        Thread.sleep(5);
+        assertNull(cache.get("k"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        LlmResponseCache cache = newCache(2, 60, false);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    public void testDiskHitKeepsOriginalWriteTime() throws IOException, InterruptedException {
+        LlmResponseCache cache = newCache(10, 1, true);
+        String key = cache.buildKey("m", "s", "u");
+        cache.put(key, "v");
+        cache.clear();
+
+        // 磁盘文件再过300毫秒就到期：这次从磁盘命中，回到内存后仍按原写入时间到期
+        setAllModified(System.currentTimeMillis() - 60_000L + 300);
+        assertEquals("v", cache.get(key));
+        Thread.sleep(500);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testSweepEnforcesDiskCap() throws IOException {
+        LlmCacheProperties properties = new LlmCacheProperties();
+        properties.setDiskEnabled(true);
+        properties.setDiskPath(diskDir.toString());
+        properties.setMaxDiskEntries(3);
+        LlmResponseCache cache = new LlmResponseCache(properties);
+        for (int i = 0; i < 5; i++) {
+            cache.put(cache.buildKey("m", "s", "u" + i), "v" + i);
+        }
+
+        cache.sweepDisk();
+
+        assertEquals(3, countDiskFiles());
+        assertEquals(2L, cache.getStats().get("diskEvictions"));
+    }
+
+    private void setAllModified(long millis) throws IOException {
+        try (Stream<Path> files = Files.walk(diskDir)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(millis));
+            }
+        }
+    }
+
+    private long countDiskFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(diskDir)) {
+            return files.filter(f -> f.toString().endsWith(".txt")).count();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.experiment;
+
+import com.experiment.utils.MinHash;
+import com.experiment.utils.MinHashIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 题目近似重复检测测试类
+ */
+public class MinHashTest {
+
+    private static final List<String> TCP_OPTIONS = List.of("A. 面向连接", "B. 无连接", "C. 不可靠传输", "D. 无拥塞控制");
+
+    @Test
+    public void testFormattingDoesNotChangeSignature() {
+        int[] original = MinHash.signature("TCP协议的主要特点是什么？", TCP_OPTIONS);
+        int[] reformatted = MinHash.signature("  tcp 协议的主要特点是什么?? ", TCP_OPTIONS);
+        assertEquals(1.0, MinHash.similarity(original, reformatted));
+    }
+
+    @Test
+    public void testNearDuplicateIsDetected() {
+        MinHashIndex index = new MinHashIndex();
+        index.add(MinHash.signature("TCP协议的主要特点是什么？", TCP_OPTIONS));
+
+        int[] reworded = MinHash.signature("TCP协议最主要的特点是什么？", TCP_OPTIONS);
+        assertTrue(index.containsSimilar(reworded, MinHash.DEFAULT_THRESHOLD));
+    }
+
+    @Test
+    public void testUnrelatedQuestionIsNotMatched() {
+        MinHashIndex index = new MinHashIndex();
+        index.add(MinHash.signature("TCP协议的主要特点是什么？", TCP_OPTIONS));
+
+        int[] unrelated = MinHash.signature("神经网络中激活函数的作用是什么？",
+                List.of("A. 引入非线性", "B. 减少参数", "C. 加快读盘", "D. 压缩模型"));
+        assertFalse(index.containsSimilar(unrelated, MinHash.DEFAULT_THRESHOLD));
+        assertTrue(index.addIfAbsent(unrelated, MinHash.DEFAULT_THRESHOLD));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        int[] signature = MinHash.signature("TCP协议的主要特点是什么？", TCP_OPTIONS);
+        assertArrayEquals(signature, MinHash.decode(MinHash.encode(signature)));
+        assertNull(MinHash.signature("   "));
+    }
+}
@@ -0,0 +1,94 @@
+package com.experiment;
+
+import com.experiment.utils.XlsxTableWriter;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * XLSX导出写出器测试类
+ */
+public class XlsxTableWriterTest {
+
+    /**
+     * 写出后解压，返回 条目名 -> 内容
+     */
+    private static Map<String, byte[]> writeAndUnzip(List<?>... rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxTableWriter writer = new XlsxTableWriter(out, "成绩<导出>");
+        for (List<?> row : rows) {
+            writer.writeRow(row);
+        }
+        writer.finish();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    @Test
+    public void testProducesCompletePackage() throws Exception {
+        Map<String, byte[]> entries = writeAndUnzip(List.of("学号", "得分"), List.of("2024001", 95));
+
+        assertTrue(entries.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels",
+                "xl/workbook.xml", "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml")));
+        for (byte[] xml : entries.values()) {
+            parse(xml);
+        }
+        Document workbook = parse(entries.get("xl/workbook.xml"));
+        assertEquals("成绩<导出>", workbook.getElementsByTagName("sheet").item(0).getAttributes().getNamedItem("name").getNodeValue());
+    }
+
+    @Test
+    public void testTextIsEscapedAndNumbersAreNumeric() throws Exception {
+        Map<String, byte[]> entries = writeAndUnzip(Arrays.asList("a<b & \"c\">", null, 87.5, "bell\u0007"));
+        Document sheet = parse(entries.get("xl/worksheets/sheet1.xml"));
+
+        NodeList cells = sheet.getElementsByTagName("c");
+        assertEquals(3, cells.getLength());
+        assertEquals("a<b & \"c\">", cells.item(0).getTextContent());
+        assertEquals("inlineStr", cells.item(0).getAttributes().getNamedItem("t").getNodeValue());
+        assertEquals("C1", cells.item(1).getAttributes().getNamedItem("r").getNodeValue());
+        assertEquals("87.5", sheet.getElementsByTagName("v").item(0).getTextContent());
+        // XML 1.0不允许的控制字符被去掉
+        assertEquals("bell", cells.item(2).getTextContent());
+    }
+
+    @Test
+    public void testColumnNamesBeyondZ() throws Exception {
+        List<Object> row = new ArrayList<>();
+        for (int i = 0; i < 703; i++) {
+            row.add(i);
+        }
+        Document sheet = parse(writeAndUnzip(row, row).get("xl/worksheets/sheet1.xml"));
+
+        NodeList cells = sheet.getElementsByTagName("c");
+        assertEquals("A1", cells.item(0).getAttributes().getNamedItem("r").getNodeValue());
+        assertEquals("Z1", cells.item(25).getAttributes().getNamedItem("r").getNodeValue());
+        assertEquals("AA1", cells.item(26).getAttributes().getNamedItem("r").getNodeValue());
+        assertEquals("ZZ1", cells.item(701).getAttributes().getNamedItem("r").getNodeValue());
+        assertEquals("AAA2", cells.item(703 + 702).getAttributes().getNamedItem("r").getNodeValue());
+    }
+}
@@ -13,6 +13,7 @@ CREATE TABLE IF NOT EXISTS question_bank (
     source VARCHAR(50) DEFAULT 'ai_generated' COMMENT '来源：ai_generated, manual, imported',
     use_count INT DEFAULT 0 COMMENT '使用次数',
     avg_score DOUBLE DEFAULT 0.0 COMMENT '平均得分率',
+    minhash VARCHAR(400) NULL COMMENT '题干+选项的MinHash签名（Base64），用于近似重复检测',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_subject (subject),
@@ -20,7 +21,7 @@ CREATE TABLE IF NOT EXISTS question_bank (
     INDEX idx_type (type),
     INDEX idx_difficulty (difficulty),
     INDEX idx_use_count (use_count),
-    INDEX idx_composite (subject, knowledge_point, type, difficulty)
+    INDEX idx_pool_use_count (subject, knowledge_point, type, difficulty, use_count ASC, create_time DESC)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='题库表';
 
 -- 插入一些示例题目（TensorFlow.js相关）